@@ -22,44 +22,180 @@
 
 package pascal.taie.analysis.dataflow.solver;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
 
-import java.util.LinkedList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Function;
 
+/**
+ * Work-list solver which processes the nodes in reverse postorder
+ * (of the CFG for forward analyses, and of the reverse CFG for backward
+ * analyses), so that a node is usually processed after the nodes that
+ * it depends on, and loops converge in few passes.
+ */
 class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
 
+    private static final Logger logger = LogManager.getLogger(WorkListSolver.class);
+
     WorkListSolver(DataflowAnalysis<Node, Fact> analysis) {
         super(analysis);
     }
 
     @Override
     protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        List<Node> worklist = new LinkedList<Node>();
+        WorkList<Node> workList = new WorkList<>(
+                computeReversePostorder(cfg, cfg.getEntry(), cfg::getSuccsOf));
         for (Node node : cfg) {
-            if (cfg.isEntry(node))
-                continue;
-            worklist.add(node);
+            if (!cfg.isEntry(node)) {
+                workList.add(node);
+            }
         }
-        while (!worklist.isEmpty()) {
-            Node node = worklist.remove(0);
+        int iterations = 0;
+        Node node;
+        while ((node = workList.poll()) != null) {
+            ++iterations;
             Fact in = analysis.newInitialFact();
-            for (Node pre : cfg.getPredsOf(node)) {
-                analysis.meetInto(result.getOutFact(pre), in);
+            for (Node pred : cfg.getPredsOf(node)) {
+                analysis.meetInto(result.getOutFact(pred), in);
             }
             result.setInFact(node, in);
-            if (analysis.transferNode(node, result.getInFact(node), result.getOutFact(node))) {
-                for(Node succ: cfg.getSuccsOf(node)) {
-                    worklist.add(succ);
+            if (analysis.transferNode(node, in, result.getOutFact(node))) {
+                for (Node succ : cfg.getSuccsOf(node)) {
+                    if (!cfg.isEntry(succ)) {
+                        workList.add(succ);
+                    }
                 }
             }
         }
+        logIterations(cfg, iterations);
     }
 
     @Override
     protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        throw new UnsupportedOperationException();
+        WorkList<Node> workList = new WorkList<>(
+                computeReversePostorder(cfg, cfg.getExit(), cfg::getPredsOf));
+        for (Node node : cfg) {
+            if (!cfg.isExit(node)) {
+                workList.add(node);
+            }
+        }
+        int iterations = 0;
+        Node node;
+        while ((node = workList.poll()) != null) {
+            ++iterations;
+            Fact out = analysis.newInitialFact();
+            for (Node succ : cfg.getSuccsOf(node)) {
+                analysis.meetInto(result.getInFact(succ), out);
+            }
+            result.setOutFact(node, out);
+            if (analysis.transferNode(node, result.getInFact(node), out)) {
+                for (Node pred : cfg.getPredsOf(node)) {
+                    if (!cfg.isExit(pred)) {
+                        workList.add(pred);
+                    }
+                }
+            }
+        }
+        logIterations(cfg, iterations);
+    }
+
+    private static void logIterations(CFG<?> cfg, int iterations) {
+        logger.debug("{} iterations for {} ({} nodes)",
+                iterations, cfg.getMethod(), cfg.getNumberOfNodes());
+    }
+
+    /**
+     * Computes reverse postorder of the nodes by depth-first search
+     * from given root along the edges given by next. The nodes that
+     * are unreachable from root are searched afterwards.
+     *
+     * @return map from nodes to their positions in reverse postorder.
+     */
+    private static <Node> Map<Node, Integer> computeReversePostorder(
+            CFG<Node> cfg, Node root, Function<Node, Set<Node>> next) {
+        List<Node> postorder = new ArrayList<>(cfg.getNumberOfNodes());
+        Set<Node> visited = Sets.newSet(cfg.getNumberOfNodes());
+        postorder(root, next, visited, postorder);
+        for (Node node : cfg) {
+            if (!visited.contains(node)) {
+                postorder(node, next, visited, postorder);
+            }
+        }
+        Map<Node, Integer> order = Maps.newMap(postorder.size());
+        for (int i = 0; i < postorder.size(); ++i) {
+            order.put(postorder.get(i), postorder.size() - 1 - i);
+        }
+        return order;
+    }
+
+    /**
+     * Appends the nodes reachable from root (and not visited yet)
+     * to given list in postorder, by iterative depth-first search.
+     */
+    private static <Node> void postorder(
+            Node root, Function<Node, Set<Node>> next,
+            Set<Node> visited, List<Node> postorder) {
+        Deque<Node> nodes = new ArrayDeque<>();
+        Deque<Iterator<Node>> iterators = new ArrayDeque<>();
+        visited.add(root);
+        nodes.push(root);
+        iterators.push(next.apply(root).iterator());
+        while (!nodes.isEmpty()) {
+            Iterator<Node> it = iterators.peek();
+            if (it.hasNext()) {
+                Node n = it.next();
+                if (visited.add(n)) {
+                    nodes.push(n);
+                    iterators.push(next.apply(n).iterator());
+                }
+            } else {
+                postorder.add(nodes.pop());
+                iterators.pop();
+            }
+        }
+    }
+
+    /**
+     * Work list which polls the node of the smallest position in the given
+     * order first, and ignores the nodes that are already in the list.
+     */
+    private static class WorkList<Node> {
+
+        private final PriorityQueue<Node> queue;
+
+        private final Set<Node> queued = Sets.newSet();
+
+        private WorkList(Map<Node, Integer> order) {
+            queue = new PriorityQueue<>(Math.max(order.size(), 1),
+                    Comparator.comparingInt(order::get));
+        }
+
+        private void add(Node node) {
+            if (queued.add(node)) {
+                queue.add(node);
+            }
+        }
+
+        private Node poll() {
+            Node node = queue.poll();
+            if (node != null) {
+                queued.remove(node);
+            }
+            return node;
+        }
     }
 }
@@ -153,14 +153,19 @@ public class ResultProcessor extends ProgramAnalysis {
     }
 
     private void processIntraResults(List<String> analyses) {
+        // Method analyses are run on the methods in parallel, thus the
+        // results are processed in the order of the methods' positions
+        // (and signatures for the methods at the same line, e.g., the
+        // ones in different classes), so that the output is deterministic.
         Stream<JMethod> methods = World.get()
                 .getClassHierarchy()
                 .applicationClasses()
                 .map(JClass::getDeclaredMethods)
                 .flatMap(Collection::stream)
                 .filter(m -> !m.isAbstract() && !m.isNative())
-                .sorted(Comparator.comparing(m ->
-                        m.getIR().getStmt(0).getLineNumber()));
+                .sorted(Comparator.comparing((JMethod m) ->
+                                m.getIR().getStmt(0).getLineNumber())
+                        .thenComparing(JMethod::toString));
         processResults(methods, analyses, (m, id) -> m.getIR().getResult(id));
     }
 
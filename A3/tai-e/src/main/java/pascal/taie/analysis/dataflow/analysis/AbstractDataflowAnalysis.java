@@ -42,6 +42,12 @@ public abstract class AbstractDataflowAnalysis<Node, Fact>
         solver = Solver.makeSolver(this);
     }
 
+    /**
+     * The analysis and its solver are shared by all methods, which are
+     * analyzed in parallel by the analysis manager, so they must not
+     * keep any per-method state; the state of solving a method lives
+     * in the {@link DataflowResult} (and the facts) of that method.
+     */
     @Override
     public DataflowResult<Node, Fact> analyze(IR ir) {
         CFG<Node> cfg = ir.getResult(CFGBuilder.ID);
@@ -49,6 +49,28 @@ public interface DataflowAnalysis<Node, Fact> {
      */
     Fact newInitialFact();
 
+    /**
+     * @return new initial fact for non-boundary nodes of given CFG.
+     * By default, this method returns {@link #newInitialFact()};
+     * analyses whose facts depend on the method, e.g., the facts
+     * indexed by the variables of the method, override this method.
+     */
+    default Fact newInitialFact(CFG<Node> cfg) {
+        return newInitialFact();
+    }
+
+    /**
+     * Resets given fact of a non-boundary node of given CFG to the initial
+     * fact in place, so that the solver can reuse the fact of the node
+     * when it recomputes the fact by meets, instead of making a new one.
+     *
+     * @return true if the fact is reset, or false if this analysis cannot
+     * reset its facts in place, then the solver makes a new initial fact.
+     */
+    default boolean resetFact(CFG<Node> cfg, Fact fact) {
+        return false;
+    }
+
     /**
      * Meets a fact into another (target) fact.
      * This function will be used to handle control-flow confluences.
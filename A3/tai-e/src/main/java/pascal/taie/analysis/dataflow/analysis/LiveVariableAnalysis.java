@@ -22,15 +22,20 @@
 
 package pascal.taie.analysis.dataflow.analysis;
 
+import pascal.taie.analysis.dataflow.fact.BitSetFact;
 import pascal.taie.analysis.dataflow.fact.SetFact;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.RValue;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.Indexer;
 
 /**
  * Implementation of classic live variable analysis.
+ * The facts are represented by {@link BitSetFact}s over the indexes
+ * of the variables in the method being analyzed.
  */
 public class LiveVariableAnalysis extends
         AbstractDataflowAnalysis<Stmt, SetFact<Var>> {
@@ -48,7 +53,7 @@ public class LiveVariableAnalysis extends
 
     @Override
     public SetFact<Var> newBoundaryFact(CFG<Stmt> cfg) {
-        return new SetFact<Var>(); // Exit is Empty
+        return newInitialFact(cfg); // Exit is Empty
     }
 
     @Override
@@ -56,26 +61,58 @@ public class LiveVariableAnalysis extends
         return new SetFact<Var>(); // Init is Empty
     }
 
+    @Override
+    public SetFact<Var> newInitialFact(CFG<Stmt> cfg) {
+        return new BitSetFact<>(new VarIndexer(cfg.getIR())); // Init is Empty
+    }
+
+    @Override
+    public boolean resetFact(CFG<Stmt> cfg, SetFact<Var> fact) {
+        fact.clear();
+        return true;
+    }
+
     @Override
     public void meetInto(SetFact<Var> fact, SetFact<Var> target) {
         target.union(fact);
     }
 
+    /**
+     * Computes in = use(stmt) U (out - def(stmt)) in place. The facts
+     * only grow during solving (the initial facts are empty, the meet
+     * is union and the transfer is monotone), so it suffices to union
+     * the new elements into in, and in changes iff any element is added.
+     */
     @Override
     public boolean transferNode(Stmt stmt, SetFact<Var> in, SetFact<Var> out) {
-        SetFact<Var> newIn = new SetFact<Var>();
-        newIn.union(out);
-        if (!stmt.getDef().isEmpty() && stmt.getDef().get() instanceof Var) {
-            newIn.remove((Var) stmt.getDef().get());
+        boolean change;
+        if (stmt.getDef().isPresent() && stmt.getDef().get() instanceof Var def) {
+            change = in.unionExcept(out, def);
+        } else {
+            change = in.union(out);
         }
         for (RValue v : stmt.getUses()) {
-//            System.out.println(v);
-            if(v instanceof Var)
-                newIn.add((Var)v);
+            if (v instanceof Var var) {
+                change |= in.add(var);
+            }
         }
-        boolean change = !in.equals(newIn);
-        in.clear();
-        in.union(newIn);
         return change;
     }
+
+    /**
+     * Indexer of the variables of a method. The indexers of the same IR
+     * are equal, so that the facts of the same method are compatible.
+     */
+    private record VarIndexer(IR ir) implements Indexer<Var> {
+
+        @Override
+        public int getIndex(Var var) {
+            return var.getIndex();
+        }
+
+        @Override
+        public Var getObject(int index) {
+            return ir.getVar(index);
+        }
+    }
 }
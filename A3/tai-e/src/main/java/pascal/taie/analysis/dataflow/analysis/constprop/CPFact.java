@@ -22,55 +22,347 @@
 
 package pascal.taie.analysis.dataflow.analysis.constprop;
 
-import pascal.taie.analysis.dataflow.fact.MapFact;
 import pascal.taie.ir.exp.Var;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Represents data facts of constant propagation, which maps variables
  * to their lattice values.
  * <p>
+ * The fact is represented by a dense array indexed by {@link Var#getIndex()},
+ * and each lattice value is encoded as a long, whose higher 32 bits are
+ * the tag (kind) of the value and lower 32 bits are the constant.
+ * The operations used by the transfer and meet functions update the facts
+ * in place and report whether the facts changed, without any copies.
+ * <p>
  * Note that in this implementation, we use absence to represent UNDEF,
  * i.e., if a CPFact does not contain variable-value mapping of a variable,
  * it represents that the lattice value of the variable is UNDEF;
  * moreover, if we set the lattice value of a variable to UNDEF,
  * it effectively removes the variable from the CPFact.
  */
-public class CPFact extends MapFact<Var, Value> {
+public class CPFact {
+
+    /**
+     * Encoded UNDEF, which is also the default value of the array.
+     */
+    private static final long UNDEF = 0L;
+
+    private static final long CONSTANT_TAG = 1L << 32;
+
+    /**
+     * Encoded NAC.
+     */
+    private static final long NAC = 2L << 32;
+
+    private static final long[] EMPTY_VALUES = {};
+
+    private static final Var[] EMPTY_VARS = {};
+
+    /**
+     * Encoded values of the variables.
+     */
+    private long[] values;
+
+    /**
+     * Variables whose values have been set, used to
+     * retrieve the variables by their indexes.
+     */
+    private Var[] vars;
 
     public CPFact() {
-        this(Collections.emptyMap());
+        this(0);
+    }
+
+    /**
+     * Constructs a new fact which is able to hold the variables
+     * with indexes less than given capacity without growing, e.g.,
+     * the number of variables of the method being analyzed.
+     */
+    public CPFact(int capacity) {
+        values = capacity == 0 ? EMPTY_VALUES : new long[capacity];
+        vars = capacity == 0 ? EMPTY_VARS : new Var[capacity];
+    }
+
+    private CPFact(CPFact fact) {
+        values = fact.values.clone();
+        vars = fact.vars.clone();
     }
 
-    private CPFact(Map<Var, Value> map) {
-        super(map);
+    private static long encode(Value value) {
+        if (value.isUndef()) {
+            return UNDEF;
+        } else if (value.isNAC()) {
+            return NAC;
+        } else {
+            return CONSTANT_TAG | (value.getConstant() & 0xFFFFFFFFL);
+        }
+    }
+
+    private static Value decode(long value) {
+        if (value == UNDEF) {
+            return Value.getUndef();
+        } else if (value == NAC) {
+            return Value.getNAC();
+        } else {
+            return Value.makeConstant((int) value);
+        }
+    }
+
+    /**
+     * Meets two encoded values.
+     */
+    private static long meet(long v1, long v2) {
+        if (v1 == UNDEF || v1 == v2) {
+            return v2;
+        } else if (v2 == UNDEF) {
+            return v1;
+        } else {
+            return NAC;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (values.length < capacity) {
+            int newCapacity = Math.max(2 * values.length, capacity);
+            values = Arrays.copyOf(values, newCapacity);
+            vars = Arrays.copyOf(vars, newCapacity);
+        }
     }
 
     /**
      * @return the value of given variable in this fact,
      * or UNDEF the variable is absent in this fact.
      */
-    @Override
     public Value get(Var key) {
-        return map.getOrDefault(key, Value.getUndef());
+        int index = key.getIndex();
+        return index < values.length ? decode(values[index]) : Value.getUndef();
     }
 
-    @Override
+    /**
+     * Updates the key-value mapping in this fact.
+     * If the client code sets variable key to UNDEF,
+     * then the variable is removed from this fact.
+     *
+     * @return if the update changes this fact.
+     */
     public boolean update(Var key, Value value) {
-        if (value.isUndef()) {
-            // if the client code sets variable key to UNDEF,
-            // then we remove the variable from the CPFact
-            // as we use absence to represent UNDEF.
-            return remove(key) != null;
-        } else {
-            return super.update(key, value);
+        return put(key, encode(value));
+    }
+
+    private boolean put(Var key, long value) {
+        int index = key.getIndex();
+        if (index >= values.length) {
+            if (value == UNDEF) {
+                return false;
+            }
+            ensureCapacity(index + 1);
         }
+        vars[index] = key;
+        long oldValue = values[index];
+        values[index] = value;
+        return oldValue != value;
     }
 
-    @Override
+    /**
+     * Removes the key-value mapping for given key.
+     *
+     * @return the previous value associated with key,
+     * or null if there was no mapping for key.
+     */
+    public Value remove(Var key) {
+        int index = key.getIndex();
+        if (index >= values.length || values[index] == UNDEF) {
+            return null;
+        }
+        Value oldValue = decode(values[index]);
+        values[index] = UNDEF;
+        return oldValue;
+    }
+
+    /**
+     * Copies the content from given fact to this fact.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean copyFrom(CPFact fact) {
+        boolean changed = false;
+        for (int i = 0; i < fact.values.length; ++i) {
+            if (fact.values[i] != UNDEF) {
+                changed |= put(fact.vars[i], fact.values[i]);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Sets the content of this fact to the same as given fact.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean set(CPFact fact) {
+        return assign(fact, -1, UNDEF);
+    }
+
+    /**
+     * Sets the content of this fact to the same as given fact,
+     * except that given key is mapped to given value, i.e.,
+     * this = fact[key -> value].
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean set(CPFact fact, Var key, Value value) {
+        int index = key.getIndex();
+        boolean changed = assign(fact, index, encode(value));
+        if (index < values.length) {
+            vars[index] = key;
+        }
+        return changed;
+    }
+
+    /**
+     * Sets the content of this fact to fact[index -> value],
+     * or the same as fact if index is -1.
+     */
+    private boolean assign(CPFact fact, int index, long value) {
+        if (index >= 0 && value != UNDEF) {
+            ensureCapacity(index + 1);
+        }
+        ensureCapacity(fact.values.length);
+        long changed = 0;
+        for (int i = 0; i < values.length; ++i) {
+            long newValue;
+            if (i == index) {
+                newValue = value;
+            } else if (i < fact.values.length) {
+                newValue = fact.values[i];
+                if (newValue != UNDEF) {
+                    vars[i] = fact.vars[i];
+                }
+            } else {
+                newValue = UNDEF;
+            }
+            changed |= values[i] ^ newValue;
+            values[i] = newValue;
+        }
+        return changed != 0;
+    }
+
+    /**
+     * Meets given fact into this fact.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean meet(CPFact fact) {
+        ensureCapacity(fact.values.length);
+        long changed = 0;
+        for (int i = 0; i < fact.values.length; ++i) {
+            long value = fact.values[i];
+            if (value != UNDEF) {
+                long newValue = meet(value, values[i]);
+                changed |= values[i] ^ newValue;
+                values[i] = newValue;
+                vars[i] = fact.vars[i];
+            }
+        }
+        return changed != 0;
+    }
+
+    /**
+     * Creates and returns a copy of this fact.
+     */
     public CPFact copy() {
-        return new CPFact(this.map);
+        return new CPFact(this);
+    }
+
+    /**
+     * Clears all content in this fact.
+     */
+    public void clear() {
+        Arrays.fill(values, UNDEF);
+    }
+
+    /**
+     * @return a {@link Set} of the keys contained in this fact.
+     */
+    public Set<Var> keySet() {
+        Set<Var> keys = new LinkedHashSet<>();
+        forEach((k, v) -> keys.add(k));
+        return Collections.unmodifiableSet(keys);
+    }
+
+    /**
+     * @return all entries (key-value mappings) in this fact.
+     */
+    public Stream<Map.Entry<Var, Value>> entries() {
+        List<Map.Entry<Var, Value>> entries = new ArrayList<>();
+        forEach((k, v) -> entries.add(Map.entry(k, v)));
+        return entries.stream();
+    }
+
+    /**
+     * Performs the given action for each entry(key-value mapping) in this fact
+     * until all entries have been processed or the action throws an exception.
+     *
+     * @param action the action to be performed for each entry.
+     */
+    public void forEach(BiConsumer<Var, Value> action) {
+        for (int i = 0; i < values.length; ++i) {
+            if (values[i] != UNDEF) {
+                action.accept(vars[i], decode(values[i]));
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CPFact that)) {
+            return false;
+        }
+        int length = Math.max(values.length, that.values.length);
+        for (int i = 0; i < length; ++i) {
+            long v1 = i < values.length ? values[i] : UNDEF;
+            long v2 = i < that.values.length ? that.values[i] : UNDEF;
+            if (v1 != v2) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (int i = 0; i < values.length; ++i) {
+            if (values[i] != UNDEF) {
+                hash += i ^ Long.hashCode(values[i]);
+            }
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        // Sort key-value pairs by key's string representation, so that the
+        // fact representation is stable across executions. This is useful
+        // for comparing expected results and the ones given by the analysis.
+        return "{" + entries()
+                .sorted(Comparator.comparing(e -> e.getKey().toString()))
+                .map(e -> e.getKey() + "=" + e.getValue())
+                .collect(Collectors.joining(", ")) + "}";
     }
 }
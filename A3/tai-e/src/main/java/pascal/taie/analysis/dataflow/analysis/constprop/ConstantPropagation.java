@@ -23,7 +23,9 @@
 package pascal.taie.analysis.dataflow.analysis.constprop;
 
 import pascal.taie.analysis.dataflow.analysis.AbstractDataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.*;
@@ -40,8 +42,24 @@ public class ConstantPropagation extends
 
     public static final String ID = "constprop";
 
+    /**
+     * Whether to propagate the values along def-use chains,
+     * see {@link SparseConstantPropagation}.
+     */
+    private final boolean sparse;
+
     public ConstantPropagation(AnalysisConfig config) {
         super(config);
+        sparse = getOptions().getBooleanOrDefault("sparse", false);
+    }
+
+    @Override
+    public DataflowResult<Stmt, CPFact> analyze(IR ir) {
+        if (sparse) {
+            CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+            return new SparseConstantPropagation(this, cfg).solve();
+        }
+        return super.analyze(ir);
     }
 
     @Override
@@ -51,7 +69,7 @@ public class ConstantPropagation extends
 
     @Override
     public CPFact newBoundaryFact(CFG<Stmt> cfg) {
-        CPFact ret = new CPFact();
+        CPFact ret = newInitialFact(cfg);
         List<Var> params = cfg.getIR().getParams();
         if (params != null && !params.isEmpty()) {
             for (Var param : params) {
@@ -67,14 +85,20 @@ public class ConstantPropagation extends
         return new CPFact();
     }
 
+    @Override
+    public CPFact newInitialFact(CFG<Stmt> cfg) {
+        return new CPFact(cfg.getIR().getVars().size());
+    }
+
+    @Override
+    public boolean resetFact(CFG<Stmt> cfg, CPFact fact) {
+        fact.clear();
+        return true;
+    }
+
     @Override
     public void meetInto(CPFact fact, CPFact target) {
-        for (Var k : fact.keySet()) {
-            Value s = fact.get(k);
-            Value t = target.get(k);
-            Value v = meetValue(s, t);
-            target.update(k, v);
-        }
+        target.meet(fact);
     }
 
 
@@ -96,18 +120,15 @@ public class ConstantPropagation extends
 
     @Override
     public boolean transferNode(Stmt stmt, CPFact in, CPFact out) {
-        CPFact newOut = in.copy();
-        if (!stmt.getDef().isEmpty()) {
-            Var def = (Var) stmt.getDef().get();
-            for (Exp exp : stmt.getUses()) {
-                Value newValue = evaluate(exp, in);
-                newOut.update(def, newValue);
-            }
+        List<RValue> uses = stmt.getUses();
+        if (stmt.getDef().isEmpty() || uses.isEmpty()) {
+            return out.set(in);
         }
-        boolean change = !newOut.equals(out);
-        out.clear();
-        out.copyFrom(newOut);
-        return change;
+        // the value of def is given by the last use, i.e., the right-hand
+        // side expression, and out = in[def -> value] is set in place
+        Var def = (Var) stmt.getDef().get();
+        Value newValue = evaluate(uses.get(uses.size() - 1), in);
+        return out.set(in, def, newValue);
     }
 
     /**
@@ -0,0 +1,368 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.BinaryExp;
+import pascal.taie.ir.exp.RValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Sparse solver of constant propagation, which propagates the values
+ * along def-use chains instead of through every node of the CFG.
+ * <p>
+ * A definition is a statement which defines a variable by an expression,
+ * and the parameters are defined at the entry of the method. The solver
+ * first computes the reaching definitions by bit sets, and links each
+ * definition to the definitions whose expressions use it. Then, the value
+ * of each definition is computed by the work-list algorithm, where the
+ * value of a variable used at a statement is the meet of the values of
+ * the definitions of the variable which reach the statement.
+ * <p>
+ * The facts of the nodes are built lazily from the reaching definitions
+ * when they are queried from the result, and they are the same as the
+ * ones computed by {@link ConstantPropagation} in dense mode.
+ */
+class SparseConstantPropagation {
+
+    private final ConstantPropagation analysis;
+
+    private final CFG<Stmt> cfg;
+
+    private final IR ir;
+
+    private final Map<Stmt, Integer> nodeIds = Maps.newMap();
+
+    /**
+     * Definitions in the method, each of which is either a statement
+     * (for definitions of statements), or a variable (for parameters).
+     */
+    private final List<Var> defVars = new ArrayList<>();
+
+    private final List<Stmt> defStmts = new ArrayList<>();
+
+    /**
+     * Map from node id to id of the definition at the node, or -1.
+     */
+    private int[] nodeDefs;
+
+    /**
+     * Map from variable index to the bit set of its definitions.
+     */
+    private long[][] varDefs;
+
+    /**
+     * Bit sets of definitions which reach the nodes (before the nodes).
+     */
+    private long[][] reachingDefs;
+
+    /**
+     * Values of the definitions.
+     */
+    private Value[] values;
+
+    SparseConstantPropagation(ConstantPropagation analysis, CFG<Stmt> cfg) {
+        this.analysis = analysis;
+        this.cfg = cfg;
+        this.ir = cfg.getIR();
+    }
+
+    DataflowResult<Stmt, CPFact> solve() {
+        collectDefs();
+        computeReachingDefs();
+        propagate();
+        return new Result();
+    }
+
+    /**
+     * @return the right-hand side expression of the definition at given
+     * statement, or null if the statement does not define a variable.
+     */
+    private static RValue getRValue(Stmt stmt) {
+        List<RValue> uses = stmt.getUses();
+        if (stmt.getDef().isPresent() &&
+                stmt.getDef().get() instanceof Var &&
+                !uses.isEmpty()) {
+            // the value of def is given by the last use, i.e., the
+            // right-hand side expression, see ConstantPropagation
+            return uses.get(uses.size() - 1);
+        }
+        return null;
+    }
+
+    private void collectDefs() {
+        for (Var param : ir.getParams()) {
+            defVars.add(param);
+            defStmts.add(null);
+        }
+        nodeDefs = new int[cfg.getNumberOfNodes()];
+        for (Stmt node : cfg) {
+            int id = nodeIds.size();
+            nodeIds.put(node, id);
+            nodeDefs[id] = -1;
+            if (getRValue(node) != null) {
+                nodeDefs[id] = defVars.size();
+                defVars.add((Var) node.getDef().get());
+                defStmts.add(node);
+            }
+        }
+        varDefs = new long[ir.getVars().size()][];
+        for (int d = 0; d < defVars.size(); ++d) {
+            int index = defVars.get(d).getIndex();
+            if (varDefs[index] == null) {
+                varDefs[index] = newBitSet();
+            }
+            set(varDefs[index], d);
+        }
+    }
+
+    private long[] newBitSet() {
+        return new long[(defVars.size() + 63) >> 6];
+    }
+
+    private static void set(long[] bits, int index) {
+        bits[index >> 6] |= 1L << index;
+    }
+
+    private static boolean get(long[] bits, int index) {
+        return (bits[index >> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Computes reaching definitions by the work-list algorithm.
+     * The parameters are defined at the entry, and each definition
+     * kills the other definitions of the same variable.
+     */
+    private void computeReachingDefs() {
+        int nodeCount = nodeIds.size();
+        reachingDefs = new long[nodeCount][];
+        long[][] outDefs = new long[nodeCount][];
+        for (int i = 0; i < nodeCount; ++i) {
+            reachingDefs[i] = newBitSet();
+            outDefs[i] = newBitSet();
+        }
+        long[] entryOut = outDefs[nodeIds.get(cfg.getEntry())];
+        for (int d = 0; d < ir.getParams().size(); ++d) {
+            set(entryOut, d);
+        }
+        Queue<Stmt> workList = new ArrayDeque<>();
+        boolean[] inWorkList = new boolean[nodeCount];
+        for (Stmt node : cfg) {
+            if (!cfg.isEntry(node)) {
+                workList.add(node);
+                inWorkList[nodeIds.get(node)] = true;
+            }
+        }
+        while (!workList.isEmpty()) {
+            Stmt node = workList.poll();
+            int id = nodeIds.get(node);
+            inWorkList[id] = false;
+            long[] in = reachingDefs[id];
+            for (Stmt pred : cfg.getPredsOf(node)) {
+                long[] predOut = outDefs[nodeIds.get(pred)];
+                for (int i = 0; i < in.length; ++i) {
+                    in[i] |= predOut[i];
+                }
+            }
+            int def = nodeDefs[id];
+            long[] kill = def >= 0 ? varDefs[defVars.get(def).getIndex()] : null;
+            long[] out = outDefs[id];
+            long changed = 0;
+            for (int i = 0; i < out.length; ++i) {
+                long newOut = kill != null ? in[i] & ~kill[i] : in[i];
+                changed |= newOut & ~out[i];
+                out[i] |= newOut;
+            }
+            if (def >= 0 && !get(out, def)) {
+                set(out, def);
+                changed = 1;
+            }
+            if (changed != 0) {
+                for (Stmt succ : cfg.getSuccsOf(node)) {
+                    int succId = nodeIds.get(succ);
+                    if (!cfg.isEntry(succ) && !inWorkList[succId]) {
+                        workList.add(succ);
+                        inWorkList[succId] = true;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the values of the definitions along the def-use chains.
+     */
+    private void propagate() {
+        int defCount = defVars.size();
+        values = new Value[defCount];
+        // users[d]: definitions whose right-hand side expressions use d
+        List<List<Integer>> users = new ArrayList<>(defCount);
+        for (int d = 0; d < defCount; ++d) {
+            values[d] = defStmts.get(d) == null ?
+                    Value.getNAC() : Value.getUndef();
+            users.add(new ArrayList<>(0));
+        }
+        for (int d = 0; d < defCount; ++d) {
+            Stmt stmt = defStmts.get(d);
+            if (stmt != null) {
+                long[] reaching = reachingDefs[nodeIds.get(stmt)];
+                for (Var use : getUsedVars(getRValue(stmt))) {
+                    long[] defs = varDefs[use.getIndex()];
+                    for (int i = 0; defs != null && i < defs.length; ++i) {
+                        long word = defs[i] & reaching[i];
+                        while (word != 0) {
+                            int u = (i << 6) + Long.numberOfTrailingZeros(word);
+                            users.get(u).add(d);
+                            word &= word - 1;
+                        }
+                    }
+                }
+            }
+        }
+        Queue<Integer> workList = new ArrayDeque<>();
+        boolean[] inWorkList = new boolean[defCount];
+        for (int d = 0; d < defCount; ++d) {
+            if (defStmts.get(d) != null) {
+                workList.add(d);
+                inWorkList[d] = true;
+            }
+        }
+        CPFact env = new CPFact(ir.getVars().size());
+        while (!workList.isEmpty()) {
+            int d = workList.poll();
+            inWorkList[d] = false;
+            Stmt stmt = defStmts.get(d);
+            RValue rvalue = getRValue(stmt);
+            long[] reaching = reachingDefs[nodeIds.get(stmt)];
+            List<Var> usedVars = getUsedVars(rvalue);
+            for (Var use : usedVars) {
+                env.update(use, getValue(use, reaching));
+            }
+            Value value = ConstantPropagation.evaluate(rvalue, env);
+            for (Var use : usedVars) {
+                env.remove(use);
+            }
+            if (!value.equals(values[d])) {
+                values[d] = value;
+                for (int user : users.get(d)) {
+                    if (!inWorkList[user]) {
+                        workList.add(user);
+                        inWorkList[user] = true;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the variables whose values are read by
+     * {@link ConstantPropagation#evaluate} for given expression.
+     */
+    private static List<Var> getUsedVars(RValue rvalue) {
+        if (rvalue instanceof Var var) {
+            return List.of(var);
+        } else if (rvalue instanceof BinaryExp binaryExp) {
+            return List.of(binaryExp.getOperand1(), binaryExp.getOperand2());
+        } else {
+            return List.of();
+        }
+    }
+
+    /**
+     * @return the meet of the values of the definitions of given variable
+     * in the reaching definitions.
+     */
+    private Value getValue(Var var, long[] reaching) {
+        Value value = Value.getUndef();
+        long[] defs = varDefs[var.getIndex()];
+        if (defs != null) {
+            for (int i = 0; i < defs.length; ++i) {
+                long word = defs[i] & reaching[i];
+                while (word != 0) {
+                    int d = (i << 6) + Long.numberOfTrailingZeros(word);
+                    value = analysis.meetValue(value, values[d]);
+                    word &= word - 1;
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Result which builds the facts of nodes from the reaching definitions
+     * and the values of the definitions when they are first queried.
+     * As in the result of the dense solver, the entry has no in fact.
+     * The result is not thread-safe, which is fine as the result of
+     * a method is only queried by the analyses of that method.
+     */
+    private class Result extends DataflowResult<Stmt, CPFact> {
+
+        @Override
+        public CPFact getInFact(Stmt node) {
+            CPFact in = super.getInFact(node);
+            if (in == null && nodeIds.containsKey(node) && !cfg.isEntry(node)) {
+                in = new CPFact(ir.getVars().size());
+                long[] reaching = reachingDefs[nodeIds.get(node)];
+                for (int i = 0; i < reaching.length; ++i) {
+                    long word = reaching[i];
+                    while (word != 0) {
+                        int d = (i << 6) + Long.numberOfTrailingZeros(word);
+                        Var var = defVars.get(d);
+                        in.update(var, analysis.meetValue(in.get(var), values[d]));
+                        word &= word - 1;
+                    }
+                }
+                setInFact(node, in);
+            }
+            return in;
+        }
+
+        @Override
+        public CPFact getOutFact(Stmt node) {
+            CPFact out = super.getOutFact(node);
+            if (out == null && nodeIds.containsKey(node)) {
+                if (cfg.isEntry(node)) {
+                    out = analysis.newBoundaryFact(cfg);
+                } else {
+                    out = getInFact(node).copy();
+                    int def = nodeDefs[nodeIds.get(node)];
+                    if (def >= 0) {
+                        out.update(defVars.get(def), values[def]);
+                    }
+                }
+                setOutFact(node, out);
+            }
+            return out;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.util.Indexer;
+
+/**
+ * Represents set-like data-flow facts by bit sets, see {@link IndexerBitSet}.
+ * The operations on two facts with the same indexer, e.g., the facts
+ * of the variables of the same method, are performed in place on the
+ * words of the bit sets.
+ *
+ * @param <E> type of elements
+ */
+public class BitSetFact<E> extends SetFact<E> {
+
+    private final IndexerBitSet<E> bits;
+
+    public BitSetFact(Indexer<E> indexer) {
+        this(new IndexerBitSet<>(indexer));
+    }
+
+    private BitSetFact(IndexerBitSet<E> bits) {
+        super(bits);
+        this.bits = bits;
+    }
+
+    @Override
+    public boolean unionExcept(SetFact<E> other, E e) {
+        if (other instanceof BitSetFact<E> that) {
+            return bits.addAllExcept(that.bits, e);
+        }
+        return super.unionExcept(other, e);
+    }
+
+    @Override
+    public BitSetFact<E> copy() {
+        return new BitSetFact<>(new IndexerBitSet<>(bits));
+    }
+}
@@ -0,0 +1,304 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.util.Indexer;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Set of indexed elements which is represented by a bit set,
+ * i.e., the i-th bit is set iff the element with index i is in the set.
+ * The elements are mapped to indexes and back by an {@link Indexer},
+ * e.g., by {@code Var.getIndex()} and {@code IR.getVar(int)} for
+ * the variables of a method.
+ * <p>
+ * The bulk operations on two sets with the same indexer work on
+ * the words of the bit sets directly, and return whether this set
+ * changed without allocating any objects.
+ *
+ * @param <E> type of elements
+ */
+public class IndexerBitSet<E> extends AbstractSet<E> {
+
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+
+    private static final long[] EMPTY_WORDS = {};
+
+    private final Indexer<E> indexer;
+
+    private long[] words;
+
+    public IndexerBitSet(Indexer<E> indexer) {
+        this.indexer = indexer;
+        this.words = EMPTY_WORDS;
+    }
+
+    /**
+     * Constructs a new set with the same indexer and elements as given set.
+     */
+    public IndexerBitSet(IndexerBitSet<E> s) {
+        this.indexer = s.indexer;
+        this.words = s.words.length == 0 ? EMPTY_WORDS : s.words.clone();
+    }
+
+    private static int wordIndex(int bitIndex) {
+        return bitIndex >> ADDRESS_BITS_PER_WORD;
+    }
+
+    private void ensureCapacity(int wordsRequired) {
+        if (words.length < wordsRequired) {
+            words = Arrays.copyOf(words,
+                    Math.max(2 * words.length, wordsRequired));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private int indexOf(Object o) {
+        return indexer.getIndex((E) o);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        int index = indexOf(o);
+        int wordIndex = wordIndex(index);
+        return wordIndex < words.length &&
+                (words[wordIndex] & (1L << index)) != 0;
+    }
+
+    @Override
+    public boolean add(E e) {
+        int index = indexer.getIndex(e);
+        int wordIndex = wordIndex(index);
+        ensureCapacity(wordIndex + 1);
+        long oldWord = words[wordIndex];
+        words[wordIndex] = oldWord | (1L << index);
+        return words[wordIndex] != oldWord;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        int index = indexOf(o);
+        int wordIndex = wordIndex(index);
+        if (wordIndex >= words.length) {
+            return false;
+        }
+        long oldWord = words[wordIndex];
+        words[wordIndex] = oldWord & ~(1L << index);
+        return words[wordIndex] != oldWord;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        if (c instanceof IndexerBitSet<?> s && isCompatible(s)) {
+            return addAll(s.words, -1);
+        }
+        return super.addAll(c);
+    }
+
+    /**
+     * Adds all elements of given set except the given element to this set.
+     *
+     * @return true if this set changed as a result of the call, otherwise false.
+     */
+    public boolean addAllExcept(IndexerBitSet<E> s, E e) {
+        if (!isCompatible(s)) {
+            boolean changed = false;
+            for (E elem : s) {
+                if (!elem.equals(e)) {
+                    changed |= add(elem);
+                }
+            }
+            return changed;
+        }
+        return addAll(s.words, indexer.getIndex(e));
+    }
+
+    /**
+     * Ors given words into the words of this set, skipping the bit
+     * at the excluded index (-1 for no exclusion).
+     */
+    private boolean addAll(long[] otherWords, int excluded) {
+        int length = otherWords.length;
+        while (length > 0 && otherWords[length - 1] == 0) {
+            --length;
+        }
+        ensureCapacity(length);
+        int excludedWord = excluded >= 0 ? wordIndex(excluded) : -1;
+        long changed = 0;
+        for (int i = 0; i < length; ++i) {
+            long otherWord = otherWords[i];
+            if (i == excludedWord) {
+                otherWord &= ~(1L << excluded);
+            }
+            changed |= otherWord & ~words[i];
+            words[i] |= otherWord;
+        }
+        return changed != 0;
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        if (c instanceof IndexerBitSet<?> s && isCompatible(s)) {
+            long changed = 0;
+            for (int i = 0; i < words.length; ++i) {
+                long otherWord = i < s.words.length ? s.words[i] : 0;
+                changed |= words[i] & ~otherWord;
+                words[i] &= otherWord;
+            }
+            return changed != 0;
+        }
+        return super.retainAll(c);
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        if (c instanceof IndexerBitSet<?> s && isCompatible(s)) {
+            long changed = 0;
+            int length = Math.min(words.length, s.words.length);
+            for (int i = 0; i < length; ++i) {
+                changed |= words[i] & s.words[i];
+                words[i] &= ~s.words[i];
+            }
+            return changed != 0;
+        }
+        return super.removeAll(c);
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(words, 0);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (long word : words) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<>() {
+
+            private int next = nextSetBit(0);
+
+            private int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public E next() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                next = nextSetBit(next + 1);
+                return indexer.getObject(last);
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                words[wordIndex(last)] &= ~(1L << last);
+                last = -1;
+            }
+        };
+    }
+
+    /**
+     * @return index of the first set bit that occurs on or after
+     * given index, or -1 if there is no such bit.
+     */
+    private int nextSetBit(int fromIndex) {
+        int wordIndex = wordIndex(fromIndex);
+        if (wordIndex >= words.length) {
+            return -1;
+        }
+        long word = words[wordIndex] & (-1L << fromIndex);
+        while (true) {
+            if (word != 0) {
+                return (wordIndex << ADDRESS_BITS_PER_WORD) +
+                        Long.numberOfTrailingZeros(word);
+            }
+            if (++wordIndex == words.length) {
+                return -1;
+            }
+            word = words[wordIndex];
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o instanceof IndexerBitSet<?> s && isCompatible(s)) {
+            int length = Math.max(words.length, s.words.length);
+            for (int i = 0; i < length; ++i) {
+                long word = i < words.length ? words[i] : 0;
+                long otherWord = i < s.words.length ? s.words[i] : 0;
+                if (word != otherWord) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    /**
+     * Two sets are compatible if they have equal indexers, i.e., they map
+     * the elements to indexes in the same way, so that their words can be
+     * combined directly.
+     */
+    private boolean isCompatible(IndexerBitSet<?> s) {
+        return indexer.equals(s.indexer);
+    }
+}
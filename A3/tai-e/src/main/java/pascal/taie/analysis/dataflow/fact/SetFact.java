@@ -48,6 +48,13 @@ public class SetFact<E> {
         this(Collections.emptySet());
     }
 
+    /**
+     * Constructs a new fact backed by given bit set, which is not copied.
+     */
+    protected SetFact(IndexerBitSet<E> set) {
+        this.set = set;
+    }
+
     /**
      * @return true if this set contains the specified element, otherwise false.
      */
@@ -92,6 +99,21 @@ public class SetFact<E> {
         return set.addAll(other.set);
     }
 
+    /**
+     * Unions other fact except given element into this fact.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean unionExcept(SetFact<E> other, E e) {
+        boolean changed = false;
+        for (E elem : other.set) {
+            if (!elem.equals(e)) {
+                changed |= set.add(elem);
+            }
+        }
+        return changed;
+    }
+
     /**
      * @return a new fact which is the union of this and other facts.
      */
@@ -119,6 +141,15 @@ public class SetFact<E> {
         return result;
     }
 
+    /**
+     * Removes the elements of other fact from this fact.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean diff(SetFact<E> other) {
+        return set.removeAll(other.set);
+    }
+
     /**
      * Sets the content of this set to the same as other set.
      */
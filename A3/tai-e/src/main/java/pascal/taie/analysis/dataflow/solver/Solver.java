@@ -81,7 +81,7 @@ public abstract class Solver<Node, Fact> {
         result.setOutFact(entry, analysis.newBoundaryFact(cfg));
         for (Node node : cfg) {
             if (!cfg.isEntry(node)) {
-                result.setOutFact(node, analysis.newInitialFact());
+                result.setOutFact(node, analysis.newInitialFact(cfg));
             }
         }
     }
@@ -91,7 +91,7 @@ public abstract class Solver<Node, Fact> {
         result.setInFact(exit, analysis.newBoundaryFact(cfg));
         for (Node node : cfg) {
             if (!cfg.isExit(node)) {
-                result.setInFact(node, analysis.newInitialFact());
+                result.setInFact(node, analysis.newInitialFact(cfg));
             }
         }
     }
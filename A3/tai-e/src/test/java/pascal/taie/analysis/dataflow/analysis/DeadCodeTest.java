@@ -34,6 +34,13 @@ public class DeadCodeTest {
                 "-a", "constprop=edge-refine:false");
     }
 
+    void testSparseDCD(String inputClass) {
+        Tests.test(inputClass, "src/test/resources/dataflow/deadcode/",
+                DeadCodeDetection.ID,
+                "-a", "livevar=strongly:false",
+                "-a", "constprop=edge-refine:false;sparse:true");
+    }
+
     @Test
     public void testControlFlowUnreachable() {
         testDCD("ControlFlowUnreachable");
@@ -58,4 +65,29 @@ public class DeadCodeTest {
     public void testLoops() {
         testDCD("Loops");
     }
+
+    @Test
+    public void testControlFlowUnreachableSparse() {
+        testSparseDCD("ControlFlowUnreachable");
+    }
+
+    @Test
+    public void testUnreachableIfBranchSparse() {
+        testSparseDCD("UnreachableIfBranch");
+    }
+
+    @Test
+    public void testUnreachableSwitchBranchSparse() {
+        testSparseDCD("UnreachableSwitchBranch");
+    }
+
+    @Test
+    public void testDeadAssignmentSparse() {
+        testSparseDCD("DeadAssignment");
+    }
+
+    @Test
+    public void testLoopsSparse() {
+        testSparseDCD("Loops");
+    }
 }
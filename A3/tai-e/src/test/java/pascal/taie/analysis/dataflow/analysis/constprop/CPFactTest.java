@@ -0,0 +1,168 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import org.junit.Test;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.type.PrimitiveType;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CPFactTest {
+
+    private static final Var X = newVar("x", 0);
+
+    private static final Var Y = newVar("y", 1);
+
+    private static final Var Z = newVar("z", 70);
+
+    private static Var newVar(String name, int index) {
+        return new Var(null, name, PrimitiveType.INT, index);
+    }
+
+    private static CPFact newFact(Var var, Value value) {
+        CPFact fact = new CPFact();
+        fact.update(var, value);
+        return fact;
+    }
+
+    @Test
+    public void testEncodeDecode() {
+        CPFact fact = new CPFact(2);
+        int[] constants = {0, 1, -1, 42, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        for (int c : constants) {
+            assertTrue(fact.update(X, Value.makeConstant(c)));
+            assertEquals(Value.makeConstant(c), fact.get(X));
+        }
+        assertTrue(fact.update(X, Value.getNAC()));
+        assertEquals(Value.getNAC(), fact.get(X));
+        assertFalse(fact.update(X, Value.getNAC()));
+        // the variables beyond the capacity grow the fact
+        assertTrue(fact.update(Z, Value.makeConstant(-7)));
+        assertEquals(Value.makeConstant(-7), fact.get(Z));
+        assertEquals(Value.getUndef(), fact.get(Y));
+        assertEquals(Value.getUndef(), fact.get(newVar("w", 1000)));
+    }
+
+    @Test
+    public void testUndefRemoves() {
+        CPFact fact = newFact(X, Value.makeConstant(1));
+        assertTrue(fact.update(X, Value.getUndef()));
+        assertEquals(Value.getUndef(), fact.get(X));
+        assertTrue(fact.keySet().isEmpty());
+        assertFalse(fact.update(Z, Value.getUndef()));
+        fact.update(Y, Value.makeConstant(Integer.MIN_VALUE));
+        assertEquals(Value.makeConstant(Integer.MIN_VALUE), fact.remove(Y));
+        assertNull(fact.remove(Y));
+        assertEquals(new CPFact(), fact);
+    }
+
+    @Test
+    public void testMeet() {
+        CPFact fact = newFact(X, Value.makeConstant(1));
+        // UNDEF meets c is c
+        assertTrue(fact.meet(newFact(Y, Value.makeConstant(-2))));
+        assertEquals(Value.makeConstant(-2), fact.get(Y));
+        // c meets c is c
+        assertFalse(fact.meet(newFact(X, Value.makeConstant(1))));
+        // c1 meets c2 is NAC
+        assertTrue(fact.meet(newFact(X, Value.makeConstant(-1))));
+        assertEquals(Value.getNAC(), fact.get(X));
+        // NAC meets c is NAC
+        assertFalse(fact.meet(newFact(X, Value.makeConstant(1))));
+        assertTrue(fact.meet(newFact(Y, Value.getNAC())));
+        assertEquals(Value.getNAC(), fact.get(Y));
+        // the constants differing only in the sign bit are different
+        CPFact min = newFact(Z, Value.makeConstant(Integer.MIN_VALUE));
+        assertFalse(min.meet(newFact(Z, Value.makeConstant(Integer.MIN_VALUE))));
+        assertTrue(min.meet(newFact(Z, Value.makeConstant(0))));
+        assertEquals(Value.getNAC(), min.get(Z));
+    }
+
+    @Test
+    public void testSet() {
+        CPFact in = newFact(X, Value.makeConstant(1));
+        in.update(Z, Value.makeConstant(-3));
+        CPFact out = newFact(Y, Value.makeConstant(2));
+        assertTrue(out.set(in));
+        assertEquals(in, out);
+        assertFalse(out.set(in));
+        // out = in[y -> c]
+        assertTrue(out.set(in, Y, Value.makeConstant(Integer.MIN_VALUE)));
+        assertEquals(Value.makeConstant(1), out.get(X));
+        assertEquals(Value.makeConstant(Integer.MIN_VALUE), out.get(Y));
+        assertEquals(Value.makeConstant(-3), out.get(Z));
+        assertFalse(out.set(in, Y, Value.makeConstant(Integer.MIN_VALUE)));
+        // out = in[x -> NAC] overrides the value of x in in
+        assertTrue(out.set(in, X, Value.getNAC()));
+        assertEquals(Value.getNAC(), out.get(X));
+        assertEquals(Value.getUndef(), out.get(Y));
+        // out = in[x -> UNDEF] removes x
+        assertTrue(out.set(in, X, Value.getUndef()));
+        assertEquals(Value.getUndef(), out.get(X));
+        assertEquals(Value.makeConstant(1), in.get(X));
+        // the key beyond both facts
+        CPFact small = new CPFact();
+        assertTrue(small.set(new CPFact(), Z, Value.makeConstant(5)));
+        assertEquals(newFact(Z, Value.makeConstant(5)), small);
+    }
+
+    @Test
+    public void testCopyAndClear() {
+        CPFact fact = newFact(X, Value.makeConstant(-1));
+        CPFact copy = fact.copy();
+        assertEquals(fact, copy);
+        copy.update(X, Value.getNAC());
+        assertEquals(Value.makeConstant(-1), fact.get(X));
+        assertTrue(fact.copyFrom(copy));
+        assertEquals(Value.getNAC(), fact.get(X));
+        fact.clear();
+        assertEquals(new CPFact(), fact);
+        assertEquals("{}", fact.toString());
+    }
+
+    @Test
+    public void testEqualsAndHashCode() {
+        // the facts of different capacities are equal if their values are
+        CPFact small = newFact(X, Value.makeConstant(-5));
+        CPFact large = new CPFact(100);
+        large.update(X, Value.makeConstant(-5));
+        assertEquals(small, large);
+        assertEquals(large, small);
+        assertEquals(small.hashCode(), large.hashCode());
+        large.update(Z, Value.makeConstant(1));
+        assertNotEquals(small, large);
+        large.update(Z, Value.getUndef());
+        assertEquals(small, large);
+        assertEquals(small.hashCode(), large.hashCode());
+        assertNotEquals(newFact(X, Value.makeConstant(-1)),
+                newFact(X, Value.getNAC()));
+        assertNotEquals(newFact(X, Value.makeConstant(1)),
+                newFact(Y, Value.makeConstant(1)));
+        assertEquals("{x=-5}", small.toString());
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import org.junit.Test;
+import pascal.taie.util.Indexer;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BitSetFactTest {
+
+    private static final Indexer<String> INDEXER = IndexerBitSetTest.INDEXER;
+
+    private static BitSetFact<String> newFact(int... indexes) {
+        BitSetFact<String> fact = new BitSetFact<>(INDEXER);
+        for (int i : indexes) {
+            fact.add(INDEXER.getObject(i));
+        }
+        return fact;
+    }
+
+    private static SetFact<String> newSetFact(int... indexes) {
+        SetFact<String> fact = new SetFact<>();
+        for (int i : indexes) {
+            fact.add(INDEXER.getObject(i));
+        }
+        return fact;
+    }
+
+    private static Set<String> toSet(SetFact<String> fact) {
+        return Set.copyOf(fact.stream().toList());
+    }
+
+    @Test
+    public void testUnion() {
+        BitSetFact<String> fact = newFact(1, 64);
+        assertTrue(fact.union(newFact(64, 128)));
+        assertFalse(fact.union(newFact(1, 128)));
+        assertEquals(Set.of("e1", "e64", "e128"), toSet(fact));
+    }
+
+    @Test
+    public void testIntersect() {
+        BitSetFact<String> fact = newFact(1, 64, 128);
+        assertTrue(fact.intersect(newFact(64, 128, 129)));
+        assertFalse(fact.intersect(newFact(64, 128)));
+        assertEquals(Set.of("e64", "e128"), toSet(fact));
+    }
+
+    @Test
+    public void testDiff() {
+        BitSetFact<String> fact = newFact(1, 64, 128);
+        assertTrue(fact.diff(newFact(64)));
+        assertFalse(fact.diff(newFact(2, 65)));
+        assertEquals(Set.of("e1", "e128"), toSet(fact));
+    }
+
+    @Test
+    public void testUnionExcept() {
+        BitSetFact<String> fact = newFact(1);
+        assertTrue(fact.unionExcept(newFact(2, 100), "e2"));
+        assertEquals(Set.of("e1", "e100"), toSet(fact));
+        assertFalse(fact.unionExcept(newFact(2, 100), "e2"));
+        assertFalse(fact.unionExcept(newFact(70), "e70"));
+        assertEquals(Set.of("e1", "e100"), toSet(fact));
+    }
+
+    @Test
+    public void testMixedOperands() {
+        // bit-set facts with hash-set facts
+        BitSetFact<String> fact = newFact(1, 64);
+        assertTrue(fact.union(newSetFact(65, 130)));
+        assertTrue(fact.unionExcept(newSetFact(2, 3), "e3"));
+        assertTrue(fact.intersect(newSetFact(1, 2, 65, 130)));
+        assertTrue(fact.diff(newSetFact(2)));
+        assertEquals(Set.of("e1", "e65", "e130"), toSet(fact));
+        // hash-set facts with bit-set facts
+        SetFact<String> setFact = newSetFact(1);
+        assertTrue(setFact.union(newFact(64, 130)));
+        assertTrue(setFact.unionExcept(newFact(2, 3), "e2"));
+        assertTrue(setFact.intersect(newFact(1, 3, 130)));
+        assertTrue(setFact.diff(newFact(3)));
+        assertEquals(Set.of("e1", "e130"), toSet(setFact));
+        // bit-set facts with different indexers
+        BitSetFact<String> other = new BitSetFact<>(new Indexer<>() {
+            @Override
+            public int getIndex(String s) {
+                return INDEXER.getIndex(s);
+            }
+
+            @Override
+            public String getObject(int index) {
+                return INDEXER.getObject(index);
+            }
+        });
+        other.add("e7");
+        other.add("e99");
+        assertTrue(fact.unionExcept(other, "e99"));
+        assertEquals(Set.of("e1", "e7", "e65", "e130"), toSet(fact));
+    }
+
+    @Test
+    public void testCopyAndSet() {
+        BitSetFact<String> fact = newFact(5, 69);
+        BitSetFact<String> copy = fact.copy();
+        assertEquals(fact, copy);
+        copy.add("e6");
+        assertFalse(fact.contains("e6"));
+        fact.set(newFact(130));
+        assertEquals(Set.of("e130"), toSet(fact));
+        fact.clear();
+        assertTrue(fact.isEmpty());
+        assertEquals(List.of(), fact.stream().toList());
+    }
+}
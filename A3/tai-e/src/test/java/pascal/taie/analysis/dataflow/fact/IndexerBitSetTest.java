@@ -0,0 +1,164 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import org.junit.Test;
+import pascal.taie.util.Indexer;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IndexerBitSetTest {
+
+    /**
+     * Indexer of strings "e0", "e1", ..., whose indexes span three words.
+     */
+    static final Indexer<String> INDEXER = new Indexer<>() {
+
+        @Override
+        public int getIndex(String s) {
+            return Integer.parseInt(s.substring(1));
+        }
+
+        @Override
+        public String getObject(int index) {
+            return "e" + index;
+        }
+    };
+
+    static IndexerBitSet<String> newSet(int... indexes) {
+        IndexerBitSet<String> set = new IndexerBitSet<>(INDEXER);
+        for (int i : indexes) {
+            set.add(INDEXER.getObject(i));
+        }
+        return set;
+    }
+
+    @Test
+    public void testAddRemoveContains() {
+        IndexerBitSet<String> set = newSet();
+        assertTrue(set.isEmpty());
+        assertTrue(set.add("e0"));
+        assertTrue(set.add("e63"));
+        assertTrue(set.add("e64"));
+        assertTrue(set.add("e130"));
+        assertFalse(set.add("e64"));
+        assertEquals(4, set.size());
+        assertTrue(set.contains("e63"));
+        assertTrue(set.contains("e130"));
+        assertFalse(set.contains("e1"));
+        assertFalse(set.contains("e200"));
+        assertTrue(set.remove("e64"));
+        assertFalse(set.remove("e64"));
+        assertFalse(set.remove("e200"));
+        assertEquals(Set.of("e0", "e63", "e130"), set);
+    }
+
+    @Test
+    public void testIterator() {
+        IndexerBitSet<String> set = newSet(130, 1, 64, 63);
+        List<String> elems = new ArrayList<>();
+        set.forEach(elems::add);
+        assertEquals(List.of("e1", "e63", "e64", "e130"), elems);
+        Iterator<String> it = set.iterator();
+        while (it.hasNext()) {
+            if (it.next().equals("e64")) {
+                it.remove();
+            }
+        }
+        assertEquals(newSet(1, 63, 130), set);
+    }
+
+    @Test
+    public void testAddAll() {
+        IndexerBitSet<String> set = newSet(1, 70);
+        assertTrue(set.addAll(newSet(70, 129)));
+        assertEquals(newSet(1, 70, 129), set);
+        assertFalse(set.addAll(newSet(1, 129)));
+        // the set grows to hold the indexes of the other set
+        assertTrue(newSet(1).addAll(newSet(200)));
+        // other collections are added element by element
+        assertTrue(set.addAll(List.of("e2", "e128")));
+        assertEquals(newSet(1, 2, 70, 128, 129), set);
+    }
+
+    @Test
+    public void testAddAllExcept() {
+        IndexerBitSet<String> set = newSet(1);
+        assertFalse(set.addAllExcept(newSet(1, 65), "e65"));
+        assertTrue(set.addAllExcept(newSet(65, 66), "e65"));
+        assertEquals(newSet(1, 66), set);
+        // the excluded element is not removed if it is already in the set
+        assertFalse(set.addAllExcept(newSet(66), "e1"));
+        assertTrue(set.contains("e1"));
+    }
+
+    @Test
+    public void testRetainAll() {
+        IndexerBitSet<String> set = newSet(1, 64, 130);
+        assertTrue(set.retainAll(newSet(64, 130, 140)));
+        assertEquals(newSet(64, 130), set);
+        assertFalse(set.retainAll(newSet(64, 130)));
+        // the words beyond the other set are cleared
+        assertTrue(set.retainAll(newSet(64)));
+        assertEquals(newSet(64), set);
+        assertTrue(set.retainAll(List.of()));
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void testRemoveAll() {
+        IndexerBitSet<String> set = newSet(1, 64, 130);
+        assertTrue(set.removeAll(newSet(64, 200)));
+        assertEquals(newSet(1, 130), set);
+        assertFalse(set.removeAll(newSet(2)));
+        assertTrue(set.removeAll(List.of("e130")));
+        assertEquals(newSet(1), set);
+    }
+
+    @Test
+    public void testEqualsAndCopy() {
+        IndexerBitSet<String> set = newSet(3, 100);
+        IndexerBitSet<String> copy = new IndexerBitSet<>(set);
+        assertEquals(set, copy);
+        assertEquals(set.hashCode(), copy.hashCode());
+        copy.add("e4");
+        assertFalse(set.contains("e4"));
+        // trailing empty words do not matter
+        IndexerBitSet<String> grown = newSet(3, 100, 190);
+        grown.remove("e190");
+        assertEquals(set, grown);
+        assertEquals(grown, set);
+        assertEquals(Set.of("e3", "e100"), set);
+        assertEquals(set, Set.of("e3", "e100"));
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertEquals(0, set.size());
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.context;
+
+/**
+ * Creates contexts of context elements of type {@code T}.
+ * <p>
+ * Contexts made by the same factory are canonical, i.e., two contexts
+ * which consist of the same elements are the same object.
+ *
+ * @param <T> type of context elements
+ */
+public interface ContextFactory<T> {
+
+    /**
+     * @return the empty context.
+     */
+    Context getEmptyContext();
+
+    /**
+     * @return a context that consists of given context elements.
+     */
+    @SuppressWarnings("unchecked")
+    Context make(T... elements);
+
+    /**
+     * @return a context that consists of the last k elements of given context.
+     * If the length of given context is not greater than k, returns itself.
+     */
+    Context makeLastK(Context context, int k);
+
+    /**
+     * Constructs a context by appending a context element to a parent
+     * context. The length of the resulting context is limited by {@code limit},
+     * i.e., the oldest elements of parent context are truncated if necessary.
+     *
+     * @param parent the parent context
+     * @param elem   the element to be appended
+     * @param limit  the length limit of the resulting context
+     * @return the resulting context.
+     */
+    Context append(Context parent, T elem, int limit);
+}
@@ -0,0 +1,184 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.context;
+
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.Indexable;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Map;
+
+/**
+ * Contexts which are interned in a trie. Each context is a node of the
+ * trie, and is represented by its parent context and its last element.
+ * As each distinct context exists only once in a trie, contexts are
+ * compared by reference, and each of them has a unique index.
+ * <p>
+ * Trie contexts are created by {@link Factory}.
+ */
+public class TrieContext implements Context, Indexable {
+
+    private final TrieContext parent;
+
+    private final Object elem;
+
+    private final int length;
+
+    private final int index;
+
+    /**
+     * Map from context elements to the child contexts, created lazily.
+     */
+    private Map<Object, TrieContext> children;
+
+    private TrieContext(TrieContext parent, Object elem, int index) {
+        this.parent = parent;
+        this.elem = elem;
+        this.length = parent == null ? 0 : parent.length + 1;
+        this.index = index;
+    }
+
+    @Override
+    public int getLength() {
+        return length;
+    }
+
+    @Override
+    public Object getElementAt(int i) {
+        if (i < 0 || i >= length) {
+            throw new AnalysisException(
+                    "Context " + this + " doesn't have " + i + "-th element");
+        }
+        TrieContext c = this;
+        for (int j = length - 1; j > i; --j) {
+            c = c.parent;
+        }
+        return c.elem;
+    }
+
+    /**
+     * @return the unique index of this context in the trie.
+     * The index of the empty context is 0.
+     */
+    @Override
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public int hashCode() {
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < length; ++i) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(getElementAt(i));
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * Factory of trie contexts. Each factory holds its own trie.
+     *
+     * @param <T> type of context elements
+     */
+    public static class Factory<T> implements ContextFactory<T> {
+
+        private final TrieContext root = new TrieContext(null, null, 0);
+
+        /**
+         * Number of contexts created by this factory.
+         */
+        private int counter = 1;
+
+        /**
+         * @return a factory of contexts with elements of type {@code E},
+         * which shares the trie with this factory. The contexts made by
+         * the two factories are canonical and have unique indexes.
+         */
+        @SuppressWarnings("unchecked")
+        public <E> Factory<E> share() {
+            // the trie holds context elements as objects,
+            // thus the element type of a factory is only nominal
+            return (Factory<E>) this;
+        }
+
+        @Override
+        public Context getEmptyContext() {
+            return root;
+        }
+
+        @SafeVarargs
+        @Override
+        public final Context make(T... elements) {
+            TrieContext c = root;
+            for (T elem : elements) {
+                c = getChild(c, elem);
+            }
+            return c;
+        }
+
+        @Override
+        public Context makeLastK(Context context, int k) {
+            TrieContext c = (TrieContext) context;
+            return c.length <= k ? c : makeLastK(c, c.length - k, k);
+        }
+
+        @Override
+        public Context append(Context parent, T elem, int limit) {
+            TrieContext c = (TrieContext) parent;
+            if (c.length >= limit) {
+                c = makeLastK(c, c.length - limit + 1, limit - 1);
+            }
+            return getChild(c, elem);
+        }
+
+        /**
+         * @return the context which consists of the k elements of
+         * given context starting from given position.
+         */
+        private TrieContext makeLastK(TrieContext context, int from, int k) {
+            if (k == 0) {
+                return root;
+            }
+            TrieContext c = root;
+            for (int i = from; i < from + k; ++i) {
+                c = getChild(c, context.getElementAt(i));
+            }
+            return c;
+        }
+
+        private TrieContext getChild(TrieContext parent, Object elem) {
+            if (parent.children == null) {
+                parent.children = Maps.newHybridMap();
+            }
+            return parent.children.computeIfAbsent(elem,
+                    e -> new TrieContext(parent, e, counter++));
+        }
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.element;
+
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.Indexable;
+import pascal.taie.util.Indexer;
+import pascal.taie.util.collection.IntMap;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Manages context-sensitive elements and pointers by two-level tables.
+ * The contexts must be {@link Indexable} (e.g., the contexts created by
+ * {@link pascal.taie.analysis.pta.core.cs.context.TrieContext.Factory}).
+ * <p>
+ * Variables, objects, call sites and methods have no global indexes,
+ * so the first level for them is still a hash map keyed by the element.
+ * The second level is an {@link IntMap} keyed by the index of the
+ * context, which avoids hashing and comparing the contexts themselves.
+ * <p>
+ * Instance fields and array indexes are first found by the index of
+ * the {@link CSObj} in a list, which is the only array-indexed level.
+ * The instance fields of an object are then kept in a hybrid map keyed
+ * by the field, as fields have no indexes either.
+ */
+public class ArrayBasedCSManager implements CSManager {
+
+    private final Map<Var, IntMap<CSVar>> vars = Maps.newMap();
+
+    private final Map<Obj, IntMap<CSObj>> objs = Maps.newMap();
+
+    private final Map<Invoke, IntMap<CSCallSite>> callSites = Maps.newMap();
+
+    private final Map<JMethod, IntMap<CSMethod>> methods = Maps.newMap();
+
+    private final Map<JField, StaticField> staticFields = Maps.newMap();
+
+    /**
+     * The i-th element holds the instance fields of the object whose
+     * index is i, or null if no instance fields of the object exist.
+     */
+    private final List<Map<JField, InstanceField>> instanceFields = new ArrayList<>();
+
+    /**
+     * The i-th element is the array index of the object whose
+     * index is i, or null if the array index does not exist.
+     */
+    private final List<ArrayIndex> arrayIndexes = new ArrayList<>();
+
+    private final List<CSVar> allCSVars = new ArrayList<>();
+
+    private final List<InstanceField> allInstanceFields = new ArrayList<>();
+
+    private final List<ArrayIndex> allArrayIndexes = new ArrayList<>();
+
+    private final CSObjIndexer objIndexer = new CSObjIndexer();
+
+    private final PointsToSetFactory ptsFactory;
+
+    /**
+     * @param ptsFactory creates the factory of points-to sets from
+     *                   the indexer of the objects of this manager
+     */
+    public ArrayBasedCSManager(Function<Indexer<CSObj>, PointsToSetFactory> ptsFactory) {
+        this.ptsFactory = ptsFactory.apply(objIndexer);
+    }
+
+    @Override
+    public CSVar getCSVar(Context context, Var var) {
+        IntMap<CSVar> csVars = vars.computeIfAbsent(var, v -> new IntMap<>());
+        int index = getIndex(context);
+        CSVar csVar = csVars.get(index);
+        if (csVar == null) {
+            csVar = initializePointsToSet(new CSVar(var, context));
+            csVars.put(index, csVar);
+            allCSVars.add(csVar);
+        }
+        return csVar;
+    }
+
+    @Override
+    public CSObj getCSObj(Context heapContext, Obj obj) {
+        IntMap<CSObj> csObjs = objs.computeIfAbsent(obj, o -> new IntMap<>());
+        int index = getIndex(heapContext);
+        CSObj csObj = csObjs.get(index);
+        if (csObj == null) {
+            csObj = objIndexer.newCSObj(obj, heapContext);
+            csObjs.put(index, csObj);
+        }
+        return csObj;
+    }
+
+    @Override
+    public CSCallSite getCSCallSite(Context context, Invoke callSite) {
+        IntMap<CSCallSite> csCallSites = callSites.computeIfAbsent(
+                callSite, c -> new IntMap<>());
+        int index = getIndex(context);
+        CSCallSite csCallSite = csCallSites.get(index);
+        if (csCallSite == null) {
+            csCallSite = new CSCallSite(callSite, context);
+            csCallSites.put(index, csCallSite);
+        }
+        return csCallSite;
+    }
+
+    @Override
+    public CSMethod getCSMethod(Context context, JMethod method) {
+        IntMap<CSMethod> csMethods = methods.computeIfAbsent(
+                method, m -> new IntMap<>());
+        int index = getIndex(context);
+        CSMethod csMethod = csMethods.get(index);
+        if (csMethod == null) {
+            csMethod = new CSMethod(method, context);
+            csMethods.put(index, csMethod);
+        }
+        return csMethod;
+    }
+
+    @Override
+    public StaticField getStaticField(JField field) {
+        return staticFields.computeIfAbsent(field,
+                f -> initializePointsToSet(new StaticField(f)));
+    }
+
+    @Override
+    public InstanceField getInstanceField(CSObj base, JField field) {
+        int index = base.getIndex();
+        Map<JField, InstanceField> fields = get(instanceFields, index);
+        if (fields == null) {
+            fields = Maps.newHybridMap();
+            set(instanceFields, index, fields);
+        }
+        InstanceField instanceField = fields.get(field);
+        if (instanceField == null) {
+            instanceField = initializePointsToSet(new InstanceField(base, field));
+            fields.put(field, instanceField);
+            allInstanceFields.add(instanceField);
+        }
+        return instanceField;
+    }
+
+    @Override
+    public ArrayIndex getArrayIndex(CSObj array) {
+        int index = array.getIndex();
+        ArrayIndex arrayIndex = get(arrayIndexes, index);
+        if (arrayIndex == null) {
+            arrayIndex = initializePointsToSet(new ArrayIndex(array));
+            set(arrayIndexes, index, arrayIndex);
+            allArrayIndexes.add(arrayIndex);
+        }
+        return arrayIndex;
+    }
+
+    @Override
+    public Collection<Var> getVars() {
+        return Collections.unmodifiableSet(vars.keySet());
+    }
+
+    @Override
+    public Collection<CSVar> getCSVars() {
+        return Collections.unmodifiableList(allCSVars);
+    }
+
+    @Override
+    public Collection<CSVar> getCSVarsOf(Var var) {
+        IntMap<CSVar> csVars = vars.get(var);
+        return csVars != null ? csVars.values() : Set.of();
+    }
+
+    @Override
+    public Collection<CSObj> getObjects() {
+        return objIndexer.getObjects();
+    }
+
+    @Override
+    public Collection<StaticField> getStaticFields() {
+        return Collections.unmodifiableCollection(staticFields.values());
+    }
+
+    @Override
+    public Collection<InstanceField> getInstanceFields() {
+        return Collections.unmodifiableList(allInstanceFields);
+    }
+
+    @Override
+    public Collection<ArrayIndex> getArrayIndexes() {
+        return Collections.unmodifiableList(allArrayIndexes);
+    }
+
+    @Override
+    public Indexer<CSObj> getObjectIndexer() {
+        return objIndexer;
+    }
+
+    @Override
+    public PointsToSetFactory getPointsToSetFactory() {
+        return ptsFactory;
+    }
+
+    private static int getIndex(Context context) {
+        if (context instanceof Indexable indexable) {
+            return indexable.getIndex();
+        }
+        throw new AnalysisException(ArrayBasedCSManager.class.getSimpleName() +
+                " requires indexable contexts, given: " + context.getClass());
+    }
+
+    private static <E> E get(List<E> list, int index) {
+        return index < list.size() ? list.get(index) : null;
+    }
+
+    private static <E> void set(List<E> list, int index, E e) {
+        while (list.size() <= index) {
+            list.add(null);
+        }
+        list.set(index, e);
+    }
+
+    private <P extends Pointer> P initializePointsToSet(P pointer) {
+        pointer.setPointsToSet(ptsFactory.make());
+        return pointer;
+    }
+}
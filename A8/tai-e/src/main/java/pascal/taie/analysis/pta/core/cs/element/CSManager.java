@@ -24,10 +24,12 @@ package pascal.taie.analysis.pta.core.cs.element;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
 import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.Indexer;
 
 import java.util.Collection;
 
@@ -106,4 +108,16 @@ public interface CSManager {
      * @return all array index pointers.
      */
     Collection<ArrayIndex> getArrayIndexes();
+
+    /**
+     * @return the indexer that maps context-sensitive objects to
+     * their dense indexes and vice versa.
+     */
+    Indexer<CSObj> getObjectIndexer();
+
+    /**
+     * @return the factory of the points-to sets of the pointers
+     * managed by this manager.
+     */
+    PointsToSetFactory getPointsToSetFactory();
 }
@@ -23,7 +23,8 @@
 package pascal.taie.analysis.pta.core.cs.selector;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
-import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.context.ContextFactory;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
@@ -35,9 +36,22 @@ import pascal.taie.language.classes.JMethod;
  */
 public class CISelector implements ContextSelector {
 
+    private final Context emptyContext;
+
+    public CISelector() {
+        this(new TrieContext.Factory<>());
+    }
+
+    /**
+     * Creates a selector whose empty context is made by given factory.
+     */
+    public CISelector(ContextFactory<?> factory) {
+        this.emptyContext = factory.getEmptyContext();
+    }
+
     @Override
     public Context getEmptyContext() {
-        return ListContext.make();
+        return emptyContext;
     }
 
     @Override
@@ -23,11 +23,13 @@
 package pascal.taie.analysis.pta.core.cs.selector;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
-import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.context.ContextFactory;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
 import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.language.classes.JMethod;
 
 /**
@@ -35,26 +37,39 @@ import pascal.taie.language.classes.JMethod;
  */
 public class _1CallSelector implements ContextSelector {
 
+    private final ContextFactory<Invoke> factory;
+
+    public _1CallSelector() {
+        this(new TrieContext.Factory<>());
+    }
+
+    /**
+     * Creates a selector which makes contexts by given factory.
+     */
+    public _1CallSelector(ContextFactory<Invoke> factory) {
+        this.factory = factory;
+    }
+
     @Override
     public Context getEmptyContext() {
-        return ListContext.make();
+        return factory.getEmptyContext();
     }
 
     @Override
     public Context selectContext(CSCallSite callSite, JMethod callee) {
         // LIB6
-        return ListContext.make(callSite.getCallSite());
+        return factory.make(callSite.getCallSite());
     }
 
     @Override
     public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
         // LIB6
-        return ListContext.make(callSite.getCallSite());
+        return factory.make(callSite.getCallSite());
     }
 
     @Override
     public Context selectHeapContext(CSMethod method, Obj obj) {
         // LIB6
-        return ListContext.make();
+        return factory.getEmptyContext();
     }
 }
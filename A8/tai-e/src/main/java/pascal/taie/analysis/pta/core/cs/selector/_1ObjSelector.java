@@ -23,7 +23,8 @@
 package pascal.taie.analysis.pta.core.cs.selector;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
-import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.context.ContextFactory;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
@@ -35,9 +36,22 @@ import pascal.taie.language.classes.JMethod;
  */
 public class _1ObjSelector implements ContextSelector {
 
+    private final ContextFactory<Obj> factory;
+
+    public _1ObjSelector() {
+        this(new TrieContext.Factory<>());
+    }
+
+    /**
+     * Creates a selector which makes contexts by given factory.
+     */
+    public _1ObjSelector(ContextFactory<Obj> factory) {
+        this.factory = factory;
+    }
+
     @Override
     public Context getEmptyContext() {
-        return ListContext.make();
+        return factory.getEmptyContext();
     }
 
     @Override
@@ -49,12 +63,12 @@ public class _1ObjSelector implements ContextSelector {
     @Override
     public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
         // LIB6
-        return ListContext.make(recv.getObject());
+        return factory.make(recv.getObject());
     }
 
     @Override
     public Context selectHeapContext(CSMethod method, Obj obj) {
         // LIB6
-        return ListContext.make();
+        return factory.getEmptyContext();
     }
 }
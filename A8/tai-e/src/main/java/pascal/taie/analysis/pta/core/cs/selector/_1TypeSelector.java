@@ -23,21 +23,36 @@
 package pascal.taie.analysis.pta.core.cs.selector;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
-import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.context.ContextFactory;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
 import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
 
 /**
  * Implementation of 1-type sensitivity.
  */
 public class _1TypeSelector implements ContextSelector {
 
+    private final ContextFactory<Type> factory;
+
+    public _1TypeSelector() {
+        this(new TrieContext.Factory<>());
+    }
+
+    /**
+     * Creates a selector which makes contexts by given factory.
+     */
+    public _1TypeSelector(ContextFactory<Type> factory) {
+        this.factory = factory;
+    }
+
     @Override
     public Context getEmptyContext() {
-        return ListContext.make();
+        return factory.getEmptyContext();
     }
 
     @Override
@@ -49,12 +64,12 @@ public class _1TypeSelector implements ContextSelector {
     @Override
     public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
         // LIB6
-        return ListContext.make(recv.getObject().getContainerType());
+        return factory.make(recv.getObject().getContainerType());
     }
 
     @Override
     public Context selectHeapContext(CSMethod method, Obj obj) {
         // LIB6
-        return ListContext.make();
+        return factory.getEmptyContext();
     }
 }
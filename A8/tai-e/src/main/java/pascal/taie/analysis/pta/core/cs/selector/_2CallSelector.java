@@ -23,7 +23,8 @@
 package pascal.taie.analysis.pta.core.cs.selector;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
-import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.context.ContextFactory;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
@@ -36,43 +37,40 @@ import pascal.taie.language.classes.JMethod;
  */
 public class _2CallSelector implements ContextSelector {
 
+    private final ContextFactory<Invoke> factory;
+
+    public _2CallSelector() {
+        this(new TrieContext.Factory<>());
+    }
+
+    /**
+     * Creates a selector which makes contexts by given factory.
+     */
+    public _2CallSelector(ContextFactory<Invoke> factory) {
+        this.factory = factory;
+    }
+
     @Override
     public Context getEmptyContext() {
-        return ListContext.make();
-    }
-    private Context selectTwo(CSCallSite callSite) {
-        Context old = callSite.getContext();
-        if(old == null)
-            return ListContext.make(callSite.getCallSite());
-        if(old instanceof ListContext l) {
-            if(l.getLength() > 0) {
-                Object last = l.getElementAt(l.getLength() - 1);
-                return ListContext.make(last, callSite.getCallSite());
-            } else {
-                return ListContext.make(callSite.getCallSite());
-            }
-        }
-        return ListContext.make(old, callSite);
+        return factory.getEmptyContext();
     }
+
     @Override
     public Context selectContext(CSCallSite callSite, JMethod callee) {
         // LIB6
-        return selectTwo(callSite);
+        return factory.append(callSite.getContext(), callSite.getCallSite(), 2);
     }
 
     @Override
     public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
         // LIB6
-        return selectTwo(callSite);
+        return factory.append(callSite.getContext(), callSite.getCallSite(), 2);
     }
 
     @Override
     public Context selectHeapContext(CSMethod method, Obj obj) {
         // LIB6
         // Just one layer of heap context
-        Context old = method.getContext();
-        if(old instanceof ListContext<?> l && l.getLength() > 0)
-            return ListContext.make(l.getElementAt(l.getLength() - 1));
-        return old;
+        return factory.makeLastK(method.getContext(), 1);
     }
 }
@@ -23,7 +23,8 @@
 package pascal.taie.analysis.pta.core.cs.selector;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
-import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.context.ContextFactory;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
@@ -35,9 +36,22 @@ import pascal.taie.language.classes.JMethod;
  */
 public class _2ObjSelector implements ContextSelector {
 
+    private final ContextFactory<Obj> factory;
+
+    public _2ObjSelector() {
+        this(new TrieContext.Factory<>());
+    }
+
+    /**
+     * Creates a selector which makes contexts by given factory.
+     */
+    public _2ObjSelector(ContextFactory<Obj> factory) {
+        this.factory = factory;
+    }
+
     @Override
     public Context getEmptyContext() {
-        return ListContext.make();
+        return factory.getEmptyContext();
     }
 
     @Override
@@ -49,27 +63,13 @@ public class _2ObjSelector implements ContextSelector {
     @Override
     public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
         // LIB6
-        Context old = recv.getContext();
-        if(old == null)
-            return ListContext.make(recv.getObject());
-        if(old instanceof ListContext l) {
-            if(l.getLength() > 0) {
-                Object last = l.getElementAt(l.getLength() - 1);
-                return ListContext.make(last, recv.getObject());
-            } else {
-                return ListContext.make(recv.getObject());
-            }
-        }
-        return ListContext.make(old, recv.getObject());
+        return factory.append(recv.getContext(), recv.getObject(), 2);
     }
 
     @Override
     public Context selectHeapContext(CSMethod method, Obj obj) {
         // LIB6
         // Just one layer of heap context
-        Context old = method.getContext();
-        if(old instanceof ListContext<?> l && l.getLength() > 0)
-            return ListContext.make(l.getElementAt(l.getLength() - 1));
-        return old;
+        return factory.makeLastK(method.getContext(), 1);
     }
 }
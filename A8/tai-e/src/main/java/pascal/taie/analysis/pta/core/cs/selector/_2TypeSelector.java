@@ -23,7 +23,8 @@
 package pascal.taie.analysis.pta.core.cs.selector;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
-import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.context.ContextFactory;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
@@ -36,9 +37,22 @@ import pascal.taie.language.type.Type;
  */
 public class _2TypeSelector implements ContextSelector {
 
+    private final ContextFactory<Type> factory;
+
+    public _2TypeSelector() {
+        this(new TrieContext.Factory<>());
+    }
+
+    /**
+     * Creates a selector which makes contexts by given factory.
+     */
+    public _2TypeSelector(ContextFactory<Type> factory) {
+        this.factory = factory;
+    }
+
     @Override
     public Context getEmptyContext() {
-        return ListContext.make();
+        return factory.getEmptyContext();
     }
 
     @Override
@@ -50,25 +64,13 @@ public class _2TypeSelector implements ContextSelector {
     @Override
     public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
         // LIB6
-        Context old = recv.getContext();
-        if(old instanceof ListContext l) {
-            if(l.getLength() > 0) {
-                Object last = l.getElementAt(l.getLength() - 1);
-                return ListContext.make(last, recv.getObject().getContainerType());
-            } else {
-                return ListContext.make(recv.getObject().getContainerType());
-            }
-        }
-        return ListContext.make(old, recv.getObject().getContainerType());
+        return factory.append(recv.getContext(), recv.getObject().getContainerType(), 2);
     }
 
     @Override
     public Context selectHeapContext(CSMethod method, Obj obj) {
         // LIB6
         // Just one layer of heap context
-        Context old = method.getContext();
-        if(old instanceof ListContext<?> l && l.getLength() > 0)
-            return ListContext.make(l.getElementAt(l.getLength() - 1));
-        return old;
+        return factory.makeLastK(method.getContext(), 1);
     }
 }
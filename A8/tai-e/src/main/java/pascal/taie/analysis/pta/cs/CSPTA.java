@@ -22,19 +22,36 @@
 
 package pascal.taie.analysis.pta.cs;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
 import pascal.taie.analysis.ProgramAnalysis;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.toolkit.scaler.Scaler;
+import pascal.taie.analysis.pta.toolkit.zipper.Zipper;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
 import pascal.taie.analysis.pta.core.cs.selector.CISelector;
 import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
+import pascal.taie.analysis.pta.core.cs.selector.GuidedSelector;
+import pascal.taie.analysis.pta.core.cs.selector._1CallSelector;
+import pascal.taie.analysis.pta.core.cs.selector._1ObjSelector;
+import pascal.taie.analysis.pta.core.cs.selector._1TypeSelector;
+import pascal.taie.analysis.pta.core.cs.selector._2CallSelector;
+import pascal.taie.analysis.pta.core.cs.selector._2ObjSelector;
+import pascal.taie.analysis.pta.core.cs.selector._2TypeSelector;
 import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.analysis.pta.plugin.ResultProcessor;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.config.AnalysisOptions;
 import pascal.taie.config.ConfigException;
-import pascal.taie.util.Strings;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Context-sensitive pointer analysis.
@@ -43,6 +60,8 @@ public class CSPTA extends ProgramAnalysis {
 
     public static final String ID = "cspta";
 
+    private static final Logger logger = LogManager.getLogger(CSPTA.class);
+
     public CSPTA(AnalysisConfig config) {
         super(config);
     }
@@ -50,38 +69,149 @@ public class CSPTA extends ProgramAnalysis {
     @Override
     public PointerAnalysisResult analyze() {
         AnalysisOptions options = getOptions();
-        Solver solver = new Solver(options,
-                new AllocationSiteBasedModel(options),
-                getContextSelector(options.getString("cs")));
-        solver.solve();
-        PointerAnalysisResult result = solver.getResult();
+        if (options.getBooleanOrDefault("taint-incremental", false)) {
+            return analyzeIncrementally(options);
+        }
+        PointerAnalysisResult result = solve(options).getResult();
         ResultProcessor.process(options, result);
         return result;
     }
 
-    private static ContextSelector getContextSelector(String cs) {
-        if (cs.equals("ci")) {
-            return new CISelector();
+    private static Solver solve(AnalysisOptions options) {
+        HeapModel heapModel = new AllocationSiteBasedModel(options);
+        String cs = options.getString("cs");
+        ContextSelector selector;
+        if (cs.equals("scaler")) {
+            selector = getScalerSelector(options, heapModel);
+        } else if (options.getBooleanOrDefault("zipper", false)) {
+            selector = getZipperSelector(options, heapModel, cs);
         } else {
-            try {
-                // we expect that the argument of context-sensitivity variant
-                // is of pattern k-kind, where k is limit of context length
-                // and kind represents kind of context element (obj, type, etc.).
-                String[] splits = cs.split("-");
-                String k = splits[0];
-                String kind = Strings.capitalize(splits[1]);
-                String selectorName = "pascal.taie.analysis.pta.core.cs.selector." +
-                        "_" + k + kind + "Selector";
-                Class<?> c = Class.forName(selectorName);
-                Constructor<?> ctor = c.getConstructor();
-                return (ContextSelector) ctor.newInstance();
-            } catch (RuntimeException e) {
-                throw new ConfigException("Unexpected context-sensitivity variants: " + cs, e);
-            } catch (ClassNotFoundException | NoSuchMethodException |
-                    InvocationTargetException | InstantiationException |
-                    IllegalAccessException e) {
-                throw new ConfigException("Failed to initialize context selector: " + cs, e);
-            }
+            selector = getContextSelector(cs, new TrieContext.Factory<>());
         }
+        Solver solver = new Solver(options, heapModel, selector);
+        solver.solve();
+        return solver;
+    }
+
+    /**
+     * Solves pointer analysis in sparse taint mode, and keeps the solver
+     * in {@link World}. When this analysis is run again on the same world,
+     * e.g., by {@code new CSPTA(config).analyze()}, with the same options
+     * except {@code taint-config}, the kept pointer
+     * analysis is reused and only taint analysis is re-run, thus the
+     * taint configuration can be changed without re-solving the program.
+     * The kept solver is discarded along with the world.
+     * <p>
+     * Note that the solver is only kept in memory, so option
+     * {@code taint-incremental} only takes effect for programmatic callers
+     * which run this analysis several times in one JVM. Each command-line
+     * run of Tai-e builds a new world, and thus always solves pointer
+     * analysis from scratch.
+     */
+    private static PointerAnalysisResult analyzeIncrementally(AnalysisOptions options) {
+        if (!"sparse".equals(options.getString("taint-mode"))) {
+            throw new ConfigException(
+                    "Incremental taint analysis requires taint-mode:sparse");
+        }
+        Map<String, Object> ptaOptions = getPTAOptions(options);
+        SolvedState state = World.get().getResult(SolvedState.class.getName());
+        Solver solver;
+        if (state != null && state.ptaOptions().equals(ptaOptions)) {
+            solver = state.solver();
+            solver.reanalyzeTaint(options.getString("taint-config"));
+        } else {
+            logger.info("Solving pointer analysis for incremental taint analysis," +
+                    " which is reused only by later runs in the same world");
+            solver = solve(options);
+            World.get().storeResult(SolvedState.class.getName(),
+                    new SolvedState(ptaOptions, solver));
+        }
+        PointerAnalysisResult result = solver.getResult();
+        ResultProcessor.process(options, result);
+        return result;
+    }
+
+    /**
+     * @return the options of pointer analysis, i.e., given options except
+     * the taint configuration, which identify the pointer analysis to be reused.
+     */
+    private static Map<String, Object> getPTAOptions(AnalysisOptions options) {
+        Map<String, Object> ptaOptions = new ObjectMapper().convertValue(
+                options, new TypeReference<>() {});
+        ptaOptions.remove("taint-config");
+        return ptaOptions;
+    }
+
+    /**
+     * Solved pointer analysis kept for incremental taint analysis.
+     */
+    private record SolvedState(Map<String, Object> ptaOptions, Solver solver) {
+    }
+
+    /**
+     * Runs a context-insensitive pre-analysis, and selects context
+     * sensitivity variant for each method by Scaler based on the result
+     * of the pre-analysis. Option {@code scaler-tst} specifies the total
+     * scalability threshold of Scaler, i.e., the budget of the sum of the
+     * points-to set sizes of all variables under the selected contexts.
+     */
+    private static ContextSelector getScalerSelector(
+            AnalysisOptions options, HeapModel heapModel) {
+        PointerAnalysisResult preResult = runPreAnalysis(options, heapModel);
+        Object tst = options.get("scaler-tst");
+        Scaler scaler = tst != null ?
+                new Scaler(preResult, ((Number) tst).longValue()) :
+                new Scaler(preResult);
+        TrieContext.Factory<?> factory = new TrieContext.Factory<>();
+        Map<String, ContextSelector> variants = Maps.newMap();
+        Map<JMethod, ContextSelector> selectors = Maps.newMap();
+        scaler.selectContext().forEach((method, cs) ->
+                selectors.put(method, variants.computeIfAbsent(cs,
+                        v -> getContextSelector(v, factory))));
+        return new GuidedSelector(selectors, new CISelector(factory));
+    }
+
+    /**
+     * Runs a context-insensitive pre-analysis, and selects precision-critical
+     * methods by Zipper based on the result of the pre-analysis. Only these
+     * methods are analyzed with the given context sensitivity variant,
+     * and the other methods are analyzed context-insensitively.
+     */
+    private static ContextSelector getZipperSelector(
+            AnalysisOptions options, HeapModel heapModel, String cs) {
+        PointerAnalysisResult preResult = runPreAnalysis(options, heapModel);
+        Set<JMethod> pcms = new Zipper(preResult).selectPrecisionCriticalMethods();
+        TrieContext.Factory<?> factory = new TrieContext.Factory<>();
+        ContextSelector selector = getContextSelector(cs, factory);
+        Map<JMethod, ContextSelector> selectors = Maps.newMap(pcms.size());
+        pcms.forEach(method -> selectors.put(method, selector));
+        return new GuidedSelector(selectors, new CISelector(factory));
+    }
+
+    private static PointerAnalysisResult runPreAnalysis(
+            AnalysisOptions options, HeapModel heapModel) {
+        Solver preSolver = new Solver(options, heapModel, new CISelector(), false);
+        preSolver.solve();
+        return preSolver.getResult();
+    }
+
+    /**
+     * Creates the selector of given context-sensitivity variant.
+     * The selector makes contexts in given trie, with the context
+     * elements of the type that the variant requires.
+     */
+    private static ContextSelector getContextSelector(
+            String cs, TrieContext.Factory<?> trie) {
+        return switch (cs) {
+            case "ci" -> new CISelector(trie);
+            case "1-call" -> new _1CallSelector(trie.share());
+            case "2-call" -> new _2CallSelector(trie.share());
+            case "1-obj" -> new _1ObjSelector(trie.share());
+            case "2-obj" -> new _2ObjSelector(trie.share());
+            case "1-type" -> new _1TypeSelector(trie.share());
+            case "2-type" -> new _2TypeSelector(trie.share());
+            default -> throw new ConfigException(
+                    "Unexpected context-sensitivity variants: " + cs);
+        };
     }
 }
@@ -0,0 +1,196 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Work list which keeps at most one pending entry for each pointer.
+ * When a pointer which is already in the work list is added again,
+ * the given points-to set is merged into the pending one.
+ */
+class CoalescingWorkList extends WorkList {
+
+    /**
+     * Orders in which pending pointers are polled.
+     */
+    enum Order {
+        /**
+         * First-in-first-out.
+         */
+        FIFO,
+        /**
+         * Last-in-first-out.
+         */
+        LIFO,
+        /**
+         * Topological order of the pointer flow graph. The pointers are
+         * processed in waves: pointers added during a wave are deferred
+         * to the next wave, and the order is recomputed between waves
+         * if the pointer flow graph grew enough, see {@link #REORDER_GROWTH}.
+         */
+        TOPO
+    }
+
+    /**
+     * The topological order is recomputed only when the number of PFG
+     * edges has grown by this fraction since the last computation.
+     * As each computation traverses the whole PFG, the sizes of the
+     * traversed PFGs grow geometrically, and the total cost is linear
+     * in the size of the final PFG. In between, the order is stale for
+     * the new edges, which only affects the efficiency of propagation.
+     */
+    private static final double REORDER_GROWTH = 0.25;
+
+    private final Order order;
+
+    private final PointerFlowGraph pointerFlowGraph;
+
+    private final PointsToSetFactory ptsFactory;
+
+    /**
+     * Map from pending pointers to their merged points-to sets.
+     */
+    private final Map<Pointer, PendingSet> pending = Maps.newMap();
+
+    /**
+     * Pending pointers for FIFO and LIFO orders.
+     */
+    private final Deque<Pointer> pointers = new ArrayDeque<>();
+
+    /**
+     * Pointers of current wave for TOPO order.
+     */
+    private PriorityQueue<Pointer> currentWave;
+
+    /**
+     * Pointers of next wave for TOPO order.
+     */
+    private final List<Pointer> nextWave = new ArrayList<>();
+
+    /**
+     * Topological order of pointers used by current wave.
+     */
+    private Map<Pointer, Integer> topoOrder = Map.of();
+
+    /**
+     * Number of PFG edges when {@link #topoOrder} was computed.
+     */
+    private int orderedEdges = -1;
+
+    CoalescingWorkList(Order order, PointerFlowGraph pointerFlowGraph,
+                       PointsToSetFactory ptsFactory) {
+        this.order = order;
+        this.pointerFlowGraph = pointerFlowGraph;
+        this.ptsFactory = ptsFactory;
+    }
+
+    @Override
+    void addEntry(Pointer pointer, PointsToSet pointsToSet) {
+        PendingSet pendingSet = pending.get(pointer);
+        if (pendingSet != null) {
+            pendingSet.merge(pointsToSet);
+            return;
+        }
+        pending.put(pointer, new PendingSet(pointsToSet));
+        switch (order) {
+            case FIFO -> pointers.addLast(pointer);
+            case LIFO -> pointers.addFirst(pointer);
+            case TOPO -> nextWave.add(pointer);
+        }
+    }
+
+    @Override
+    Entry pollEntry() {
+        Pointer pointer = order == Order.TOPO ?
+                pollTopo() : pointers.pollFirst();
+        if (pointer == null) {
+            return null;
+        }
+        return new Entry(pointer, pending.remove(pointer).pointsToSet);
+    }
+
+    @Override
+    boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    private Pointer pollTopo() {
+        if (currentWave == null || currentWave.isEmpty()) {
+            if (nextWave.isEmpty()) {
+                return null;
+            }
+            int edges = pointerFlowGraph.getNumberOfEdges();
+            if (orderedEdges < 0 ||
+                    edges - orderedEdges > orderedEdges * REORDER_GROWTH) {
+                topoOrder = pointerFlowGraph.computeTopologicalOrder();
+                orderedEdges = edges;
+            }
+            // pointers unknown to the order (e.g., the ones without
+            // any PFG edges) are processed at the end of the wave
+            currentWave = new PriorityQueue<>(Math.max(nextWave.size(), 1),
+                    Comparator.comparingInt(p ->
+                            topoOrder.getOrDefault(p, Integer.MAX_VALUE)));
+            currentWave.addAll(nextWave);
+            nextWave.clear();
+        }
+        return currentWave.poll();
+    }
+
+    /**
+     * Points-to set of a pending entry. The set given by the first
+     * {@link #addEntry} is not modified (it may be shared by other entries),
+     * and it is copied when the first merge happens.
+     */
+    private class PendingSet {
+
+        private PointsToSet pointsToSet;
+
+        private boolean copied = false;
+
+        private PendingSet(PointsToSet pointsToSet) {
+            this.pointsToSet = pointsToSet;
+        }
+
+        private void merge(PointsToSet other) {
+            if (!copied) {
+                PointsToSet copy = ptsFactory.make();
+                copy.addAll(pointsToSet);
+                pointsToSet = copy;
+                copied = true;
+            }
+            pointsToSet.addAll(other);
+        }
+    }
+}
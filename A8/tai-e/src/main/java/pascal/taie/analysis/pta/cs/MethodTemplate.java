@@ -0,0 +1,180 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.analysis.graph.callgraph.CallGraphs;
+import pascal.taie.analysis.graph.callgraph.CallKind;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.StmtVisitor;
+import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Context-independent pointer constraints of a method, i.e., the
+ * information of the statements that {@link Solver} processes when the
+ * method becomes reachable, with field and method references resolved.
+ * A template is built once for each method, and is instantiated for
+ * each context in which the method is reachable.
+ */
+class MethodTemplate {
+
+    /**
+     * Allocation site "var = new T" which allocates obj.
+     */
+    record NewSite(Var var, Obj obj) {
+    }
+
+    /**
+     * Assignment "to = from".
+     */
+    record Assign(Var from, Var to) {
+    }
+
+    /**
+     * Static field load "to = T.field".
+     */
+    record StaticLoad(JField field, Var to) {
+    }
+
+    /**
+     * Static field store "T.field = from".
+     */
+    record StaticStore(Var from, JField field) {
+    }
+
+    /**
+     * Static call "result = T.callee(args)".
+     *
+     * @param args       arguments, the i-th one is passed to params[i].
+     * @param params     parameters of the callee.
+     * @param returnVars return variables of the callee, empty if the
+     *                   result of the call is not used.
+     */
+    record StaticCall(Invoke callSite, JMethod callee, CallKind kind,
+                      List<Var> args, List<Var> params, List<Var> returnVars) {
+    }
+
+    private final List<NewSite> newSites = new ArrayList<>();
+
+    private final List<Assign> copies = new ArrayList<>();
+
+    private final List<StaticLoad> staticLoads = new ArrayList<>();
+
+    private final List<StaticStore> staticStores = new ArrayList<>();
+
+    private final List<StaticCall> staticCalls = new ArrayList<>();
+
+    MethodTemplate(JMethod method, HeapModel heapModel) {
+        Builder builder = new Builder(heapModel);
+        for (Stmt stmt : method.getIR().getStmts()) {
+            stmt.accept(builder);
+        }
+    }
+
+    List<NewSite> getNewSites() {
+        return newSites;
+    }
+
+    List<Assign> getCopies() {
+        return copies;
+    }
+
+    List<StaticLoad> getStaticLoads() {
+        return staticLoads;
+    }
+
+    List<StaticStore> getStaticStores() {
+        return staticStores;
+    }
+
+    List<StaticCall> getStaticCalls() {
+        return staticCalls;
+    }
+
+    /**
+     * Collects the constraints from the statements of a method.
+     */
+    private class Builder implements StmtVisitor<Void> {
+
+        private final HeapModel heapModel;
+
+        private Builder(HeapModel heapModel) {
+            this.heapModel = heapModel;
+        }
+
+        @Override
+        public Void visit(New stmt) {
+            newSites.add(new NewSite(stmt.getLValue(), heapModel.getObj(stmt)));
+            return null;
+        }
+
+        @Override
+        public Void visit(Copy stmt) {
+            copies.add(new Assign(stmt.getRValue(), stmt.getLValue()));
+            return null;
+        }
+
+        @Override
+        public Void visit(LoadField stmt) {
+            if (stmt.isStatic()) {
+                staticLoads.add(new StaticLoad(
+                        stmt.getFieldRef().resolve(), stmt.getLValue()));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(StoreField stmt) {
+            if (stmt.isStatic()) {
+                staticStores.add(new StaticStore(
+                        stmt.getRValue(), stmt.getFieldRef().resolve()));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(Invoke stmt) {
+            if (stmt.isStatic()) {
+                JMethod callee = stmt.getMethodRef().resolve();
+                List<Var> returnVars = stmt.getResult() != null ?
+                        callee.getIR().getReturnVars() : List.of();
+                staticCalls.add(new StaticCall(stmt, callee,
+                        CallGraphs.getCallKind(stmt),
+                        stmt.getInvokeExp().getArgs(),
+                        callee.getIR().getParams(), returnVars));
+            }
+            return null;
+        }
+    }
+}
@@ -25,7 +25,14 @@ package pascal.taie.analysis.pta.cs;
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
 import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -39,19 +46,250 @@ class PointerFlowGraph {
     private final MultiMap<Pointer, Pointer> successors = Maps.newMultiMap();
 
     /**
-     * Adds an edge (source -> target) to this PFG.
+     * Map from a merged pointer to the pointer which represents it.
+     * Pointers that are not merged are absent from this map.
+     */
+    private final Map<Pointer, Pointer> reps = Maps.newMap();
+
+    /**
+     * Map from a representative to the pointers it represents
+     * (including itself). Representatives that do not represent
+     * other pointers are absent from this map.
+     */
+    private final MultiMap<Pointer, Pointer> members = Maps.newMultiMap();
+
+    /**
+     * Edges which have been added by {@link #addEdge(Pointer, Pointer)},
+     * given by their original endpoints. Before any pointers are merged,
+     * these edges are exactly the edges in {@link #successors}, thus this
+     * map is null until the first call of {@link #merge(Pointer, Set)}.
+     */
+    private MultiMap<Pointer, Pointer> addedEdges;
+
+    /**
+     * Number of edges in this PFG.
+     */
+    private int edgeCount = 0;
+
+    /**
+     * Adds an edge (source -> target) to this PFG. If source or target
+     * has been merged, the edge is added between their representatives,
+     * and nothing is added when they have the same representative.
      *
-     * @return true if this PFG changed as a result of the call,
-     * otherwise false.
+     * @return true if edge (source -> target) has not been added before,
+     * otherwise false. The result is given in terms of the original
+     * endpoints, so it may be true even if the edge between the
+     * representatives already exists.
      */
     boolean addEdge(Pointer source, Pointer target) {
-        return successors.put(source, target);
+        if (addedEdges == null) {
+            if (source != target && successors.put(source, target)) {
+                ++edgeCount;
+                return true;
+            }
+            return false;
+        }
+        if (!addedEdges.put(source, target)) {
+            return false;
+        }
+        source = getRep(source);
+        target = getRep(target);
+        if (source != target && successors.put(source, target)) {
+            ++edgeCount;
+        }
+        return true;
     }
 
     /**
-     * @return successors of given pointer in the PFG.
+     * @return the number of edges in this PFG.
+     */
+    int getNumberOfEdges() {
+        return edgeCount;
+    }
+
+    /**
+     * @return successors of given pointer in the PFG. As edges are not
+     * redirected when their targets are merged, the result may contain
+     * merged pointers, use {@link #getRep(Pointer)} to find the pointers
+     * which actually receive the points-to sets.
      */
     Set<Pointer> getSuccsOf(Pointer pointer) {
-        return successors.get(pointer);
+        return successors.get(getRep(pointer));
+    }
+
+    /**
+     * @return the representative of given pointer. The representative
+     * of a pointer that is not merged is the pointer itself.
+     */
+    Pointer getRep(Pointer pointer) {
+        Pointer rep = reps.get(pointer);
+        if (rep == null) {
+            return pointer;
+        }
+        Pointer root = getRep(rep);
+        if (root != rep) {
+            // path compression
+            reps.put(pointer, root);
+        }
+        return root;
+    }
+
+    /**
+     * @return the pointers represented by given representative,
+     * including the representative itself.
+     */
+    Set<Pointer> getMembersOf(Pointer rep) {
+        Set<Pointer> ms = members.get(rep);
+        return ms.isEmpty() ? Set.of(rep) : ms;
+    }
+
+    /**
+     * Merges the given representatives, which should form a cycle,
+     * into {@code rep}. The successors of the merged pointers become
+     * the successors of {@code rep}, and the edges inside the cycle are
+     * removed, so that {@link #getNumberOfEdges()} counts the edges that
+     * remain in the graph. Note that this method does not touch the
+     * points-to sets of the pointers.
+     */
+    void merge(Pointer rep, Set<Pointer> cycle) {
+        if (addedEdges == null) {
+            // keeps the edges by their original endpoints, as the edges
+            // in successors are redirected to the representatives below
+            addedEdges = Maps.newMultiMap();
+            addedEdges.putAll(successors);
+        }
+        if (!members.containsKey(rep)) {
+            members.put(rep, rep);
+        }
+        for (Pointer p : cycle) {
+            if (p != rep) {
+                reps.put(p, rep);
+                Set<Pointer> ms = getMembersOf(p);
+                members.putAll(rep, ms);
+                members.removeAll(p);
+            }
+        }
+        for (Pointer p : cycle) {
+            if (p != rep) {
+                for (Pointer succ : successors.get(p)) {
+                    succ = getRep(succ);
+                    if (succ != rep && successors.put(rep, succ)) {
+                        ++edgeCount;
+                    }
+                }
+                edgeCount -= successors.get(p).size();
+                successors.removeAll(p);
+            }
+        }
+        Set<Pointer> repSuccs = successors.get(rep);
+        for (Pointer p : cycle) {
+            if (repSuccs.contains(p)) {
+                --edgeCount;
+            }
+        }
+        successors.removeAll(rep, cycle);
+    }
+
+    /**
+     * Finds the cycles which are reachable from given pointer, by
+     * Tarjan's algorithm on the graph of representatives.
+     *
+     * @return the strongly connected components which consist of
+     * more than one representative.
+     */
+    List<Set<Pointer>> findCycles(Pointer root) {
+        List<Set<Pointer>> cycles = new ArrayList<>();
+        Map<Pointer, Integer> indexes = Maps.newMap();
+        Map<Pointer, Integer> lowLinks = Maps.newMap();
+        Deque<Pointer> sccStack = new ArrayDeque<>();
+        Set<Pointer> onSccStack = Sets.newSet();
+        Deque<Pointer> stack = new ArrayDeque<>();
+        Deque<Iterator<Pointer>> iterators = new ArrayDeque<>();
+        root = getRep(root);
+        indexes.put(root, 0);
+        lowLinks.put(root, 0);
+        sccStack.push(root);
+        onSccStack.add(root);
+        stack.push(root);
+        iterators.push(getSuccsOf(root).iterator());
+        while (!stack.isEmpty()) {
+            Pointer node = stack.peek();
+            Iterator<Pointer> it = iterators.peek();
+            if (it.hasNext()) {
+                Pointer succ = getRep(it.next());
+                if (!indexes.containsKey(succ)) {
+                    int index = indexes.size();
+                    indexes.put(succ, index);
+                    lowLinks.put(succ, index);
+                    sccStack.push(succ);
+                    onSccStack.add(succ);
+                    stack.push(succ);
+                    iterators.push(getSuccsOf(succ).iterator());
+                } else if (onSccStack.contains(succ)) {
+                    lowLinks.put(node,
+                            Math.min(lowLinks.get(node), indexes.get(succ)));
+                }
+            } else {
+                stack.pop();
+                iterators.pop();
+                int lowLink = lowLinks.get(node);
+                if (!stack.isEmpty()) {
+                    Pointer parent = stack.peek();
+                    lowLinks.put(parent, Math.min(lowLinks.get(parent), lowLink));
+                }
+                if (lowLink == indexes.get(node)) {
+                    Set<Pointer> scc = Sets.newSet();
+                    Pointer p;
+                    do {
+                        p = sccStack.pop();
+                        onSccStack.remove(p);
+                        scc.add(p);
+                    } while (p != node);
+                    if (scc.size() > 1) {
+                        cycles.add(scc);
+                    }
+                }
+            }
+        }
+        return cycles;
+    }
+
+    /**
+     * Computes a topological order of the pointers in this PFG, i.e.,
+     * the reverse post-order of a depth-first traversal. Pointers in
+     * the same cycle are ordered arbitrarily.
+     *
+     * @return the map from each pointer to its position in the order.
+     */
+    Map<Pointer, Integer> computeTopologicalOrder() {
+        List<Pointer> postOrder = new ArrayList<>();
+        Set<Pointer> visited = Sets.newSet();
+        Deque<Pointer> stack = new ArrayDeque<>();
+        Deque<Iterator<Pointer>> iterators = new ArrayDeque<>();
+        for (Pointer root : successors.keySet()) {
+            if (!visited.add(root)) {
+                continue;
+            }
+            stack.push(root);
+            iterators.push(getSuccsOf(root).iterator());
+            while (!stack.isEmpty()) {
+                Iterator<Pointer> it = iterators.peek();
+                if (it.hasNext()) {
+                    Pointer succ = it.next();
+                    if (visited.add(succ)) {
+                        stack.push(succ);
+                        iterators.push(getSuccsOf(succ).iterator());
+                    }
+                } else {
+                    postOrder.add(stack.pop());
+                    iterators.pop();
+                }
+            }
+        }
+        Map<Pointer, Integer> order = Maps.newMap(postOrder.size());
+        for (int i = postOrder.size() - 1, pos = 0; i >= 0; --i, ++pos) {
+            order.put(postOrder.get(i), pos);
+        }
+        return order;
     }
 }
@@ -32,6 +32,7 @@ import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.PointerAnalysisResultImpl;
 import pascal.taie.analysis.pta.core.cs.CSCallGraph;
 import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.ArrayBasedCSManager;
 import pascal.taie.analysis.pta.core.cs.element.ArrayIndex;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSManager;
@@ -45,16 +46,33 @@ import pascal.taie.analysis.pta.core.cs.element.StaticField;
 import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
 import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.plugin.CompositePlugin;
+import pascal.taie.analysis.pta.plugin.Plugin;
+import pascal.taie.analysis.pta.plugin.container.ContainerSummary;
+import pascal.taie.analysis.pta.plugin.taint.SparseTaintAnalysis;
 import pascal.taie.analysis.pta.plugin.taint.TaintAnalysiss;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.analysis.pta.pts.PointsToSetFactory;
 import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
 import pascal.taie.ir.exp.InvokeExp;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.*;
 import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.type.Type;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.Indexer;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 public class Solver {
 
@@ -68,21 +86,73 @@ public class Solver {
 
     private CSManager csManager;
 
+    private PointsToSetFactory ptsFactory;
+
     private CSCallGraph callGraph;
 
     private PointerFlowGraph pointerFlowGraph;
 
     private WorkList workList;
 
-    private TaintAnalysiss taintAnalysis;
+    /**
+     * Constraint templates of the methods that have been reachable.
+     */
+    private final Map<JMethod, MethodTemplate> templates = Maps.newMap();
+
+    /**
+     * Whether to merge the pointers in PFG cycles, see {@link #collapseCycles()}.
+     */
+    private boolean collapseCycles;
+
+    /**
+     * PFG edges that have been checked for cycles.
+     */
+    private final MultiMap<Pointer, Pointer> checkedEdges = Maps.newMultiMap();
+
+    /**
+     * Pointers from which the cycles are searched, in next {@link #collapseCycles()}.
+     */
+    private final List<Pointer> cycleCandidates = new ArrayList<>();
+
+    /**
+     * Whether to run taint analysis along with pointer analysis.
+     */
+    private final boolean enableTaint;
+
+    /**
+     * Plugin which is notified about the events during solving.
+     */
+    private Plugin plugin;
+
+    private Plugin taintAnalysis;
+
+    /**
+     * Map from pointers to the filters of the objects propagated to them.
+     */
+    private final Map<Pointer, Predicate<CSObj>> filters = Maps.newMap();
+
+    /**
+     * Call edges of the calls handled by plugins, see {@link #notifyHandledCall}.
+     */
+    private final Set<Edge<CSCallSite, CSMethod>> handledCallEdges = Sets.newSet();
 
     private PointerAnalysisResult result;
 
     Solver(AnalysisOptions options, HeapModel heapModel,
            ContextSelector contextSelector) {
+        this(options, heapModel, contextSelector, true);
+    }
+
+    /**
+     * @param enableTaint whether to run taint analysis, which is useless
+     *                    when this solver is used as a pre-analysis.
+     */
+    Solver(AnalysisOptions options, HeapModel heapModel,
+           ContextSelector contextSelector, boolean enableTaint) {
         this.options = options;
         this.heapModel = heapModel;
         this.contextSelector = contextSelector;
+        this.enableTaint = enableTaint;
     }
 
     public AnalysisOptions getOptions() {
@@ -100,15 +170,18 @@ public class Solver {
     void solve() {
         initialize();
         analyze();
-        taintAnalysis.onFinish();
+        plugin.onFinish();
     }
 
     private void initialize() {
-        csManager = new MapBasedCSManager();
+        csManager = makeCSManager(options.getString("cs-manager"));
+        ptsFactory = csManager.getPointsToSetFactory();
         callGraph = new CSCallGraph(csManager);
         pointerFlowGraph = new PointerFlowGraph();
-        workList = new WorkList();
-        taintAnalysis = new TaintAnalysiss(this);
+        workList = makeWorkList(options.getString("worklist"));
+        collapseCycles = options.getBooleanOrDefault("collapse-cycles", false);
+        setPlugin();
+        plugin.onStart();
         // process program entry, i.e., main method
         Context defContext = contextSelector.getEmptyContext();
         JMethod main = World.get().getMainMethod();
@@ -117,6 +190,85 @@ public class Solver {
         addReachable(csMethod);
     }
 
+    private void setPlugin() {
+        CompositePlugin plugin = new CompositePlugin();
+        if (options.getBooleanOrDefault("container-summary", false)) {
+            plugin.addPlugin(new ContainerSummary(this));
+        }
+        if (enableTaint) {
+            taintAnalysis = makeTaintAnalysis(options.getString("taint-mode"));
+            plugin.addPlugin(taintAnalysis);
+        }
+        this.plugin = plugin;
+    }
+
+    /**
+     * Creates the taint analysis specified by option {@code taint-mode}:
+     * {@code on-the-fly} (default) for {@link TaintAnalysiss}, which
+     * propagates taint objects along with the other objects, or
+     * {@code sparse} for {@link SparseTaintAnalysis}, which propagates
+     * taint objects after pointer analysis finishes.
+     */
+    private Plugin makeTaintAnalysis(String mode) {
+        if (mode == null || mode.equals("on-the-fly")) {
+            return new TaintAnalysiss(this);
+        } else if (mode.equals("sparse")) {
+            return new SparseTaintAnalysis(this);
+        } else {
+            throw new ConfigException("Unknown taint mode: " + mode);
+        }
+    }
+
+    /**
+     * Re-runs taint analysis with the configuration in given file on the
+     * solved pointer analysis. This is only supported by sparse taint mode.
+     */
+    void reanalyzeTaint(String configPath) {
+        if (taintAnalysis instanceof SparseTaintAnalysis sparse) {
+            sparse.run(configPath);
+        } else {
+            throw new AnalysisException("Taint analysis cannot be re-run in "
+                    + options.getString("taint-mode") + " taint mode");
+        }
+    }
+
+    /**
+     * Creates the CS manager specified by option {@code cs-manager}:
+     * {@code map} (default) for {@link MapBasedCSManager}, or {@code array}
+     * for {@link ArrayBasedCSManager}, which requires indexable contexts.
+     */
+    private CSManager makeCSManager(String kind) {
+        Function<Indexer<CSObj>, PointsToSetFactory> factory =
+                objIndexer -> new PointsToSetFactory(options, objIndexer);
+        if (kind == null || kind.equals("map")) {
+            return new MapBasedCSManager(factory);
+        } else if (kind.equals("array")) {
+            return new ArrayBasedCSManager(factory);
+        } else {
+            throw new ConfigException("Unknown CS manager: " + kind);
+        }
+    }
+
+    /**
+     * Creates the work list specified by option {@code worklist}:
+     * {@code queue} (default) for a plain FIFO queue of entries, or
+     * {@code fifo}, {@code lifo}, {@code topo} for a work list which
+     * merges the pending entries of the same pointer and polls pointers
+     * in the given order.
+     */
+    private WorkList makeWorkList(String kind) {
+        if (kind == null || kind.equals("queue")) {
+            return new WorkList();
+        }
+        try {
+            CoalescingWorkList.Order order =
+                    CoalescingWorkList.Order.valueOf(kind.toUpperCase());
+            return new CoalescingWorkList(order, pointerFlowGraph, ptsFactory);
+        } catch (IllegalArgumentException e) {
+            throw new ConfigException("Unknown work list: " + kind, e);
+        }
+    }
+
     /**
      * Processes new reachable context-sensitive method.
      */
@@ -125,92 +277,117 @@ public class Solver {
         if(callGraph.contains(csMethod))
             return;
         callGraph.addReachableMethod(csMethod);
-        StmtProcessor stmtProcessor = new StmtProcessor(csMethod);
-        for(Stmt stmt : csMethod.getMethod().getIR().getStmts()) {
-            stmt.accept(stmtProcessor);
+        MethodTemplate template = templates.computeIfAbsent(
+                csMethod.getMethod(), m -> new MethodTemplate(m, heapModel));
+        instantiate(csMethod, template);
+        plugin.onNewCSMethod(csMethod);
+    }
+
+    /**
+     * Instantiates the constraints of a method template in the context
+     * of given context-sensitive method.
+     */
+    private void instantiate(CSMethod csMethod, MethodTemplate template) {
+        Context context = csMethod.getContext();
+        for (MethodTemplate.NewSite newSite : template.getNewSites()) {
+            Pointer p = csManager.getCSVar(context, newSite.var());
+            Obj o = newSite.obj();
+            Context ct = contextSelector.selectHeapContext(csMethod, o);
+            CSObj co = csManager.getCSObj(ct, o);
+            workList.addEntry(p, ptsFactory.make(co));
+        }
+        for (MethodTemplate.Assign copy : template.getCopies()) {
+            addPFGEdge(csManager.getCSVar(context, copy.from()),
+                    csManager.getCSVar(context, copy.to()));
+        }
+        for (MethodTemplate.StaticLoad load : template.getStaticLoads()) {
+            addPFGEdge(csManager.getStaticField(load.field()),
+                    csManager.getCSVar(context, load.to()));
+        }
+        for (MethodTemplate.StaticStore store : template.getStaticStores()) {
+            addPFGEdge(csManager.getCSVar(context, store.from()),
+                    csManager.getStaticField(store.field()));
+        }
+        for (MethodTemplate.StaticCall call : template.getStaticCalls()) {
+            processStaticCall(context, call);
+        }
+    }
+
+    private void processStaticCall(Context context, MethodTemplate.StaticCall call) {
+        Invoke stmt = call.callSite();
+        CSCallSite csCallSite = csManager.getCSCallSite(context, stmt);
+        JMethod m = call.callee();
+        Context ct = contextSelector.selectContext(csCallSite, m);
+        CSMethod csM = csManager.getCSMethod(ct, m);
+        Edge<CSCallSite, CSMethod> edge = new Edge<>(call.kind(), csCallSite, csM);
+        if(callGraph.addEdge(edge)) {
+            addReachable(csM);
+            List<Var> args = call.args();
+            List<Var> params = call.params();
+            for(int i = 0; i < params.size(); i ++) {
+                addPFGEdge(csManager.getCSVar(context, args.get(i)),
+                        csManager.getCSVar(ct, params.get(i)));
+            }
+            for(Var mr : call.returnVars()) {
+                Var r = stmt.getResult();
+                addPFGEdge(csManager.getCSVar(ct, mr), csManager.getCSVar(context, r));
+            }
+            plugin.onNewCallEdge(edge);
         }
     }
 
     /**
-     * Processes the statements in context-sensitive new reachable methods.
+     * Adds the objects in pts to the points-to set of given pointer.
+     * This is used by the plugins to contribute objects during solving.
      */
-    private class StmtProcessor implements StmtVisitor<Void> {
+    public void addPointsTo(Pointer pointer, PointsToSet pts) {
+        workList.addEntry(pointer, pts);
+    }
 
-        private final CSMethod csMethod;
+    /**
+     * Adds an object to the points-to set of given pointer.
+     */
+    public void addPointsTo(Pointer pointer, CSObj obj) {
+        addPointsTo(pointer, ptsFactory.make(obj));
+    }
 
-        private final Context context;
+    /**
+     * Adds a filter to given pointer, so that only the objects which
+     * satisfy the filter are propagated to the pointer afterwards.
+     * Pointers with filters are not merged with the others by
+     * {@link #collapseCycles()}, as merged pointers share points-to set.
+     */
+    public void addPointsToFilter(Pointer pointer, Predicate<CSObj> filter) {
+        filters.merge(pointer, filter, Predicate::and);
+    }
 
-        private StmtProcessor(CSMethod csMethod) {
-            this.csMethod = csMethod;
-            this.context = csMethod.getContext();
-        }
-        // LAB6
-        public Void visit(New stmt) {
-            Pointer p = csManager.getCSVar(context, stmt.getLValue());
-            Obj o = heapModel.getObj(stmt);
-            Context ct = contextSelector.selectHeapContext(csMethod, o);
-            CSObj co = csManager.getCSObj(ct, o);
-            PointsToSet set = PointsToSetFactory.make(co);
-            workList.addEntry(p, set);
-            return null;
-        }
-        public Void visit(Copy stmt) {
-            Pointer left = csManager.getCSVar(context, stmt.getLValue());
-            Pointer right = csManager.getCSVar(context, stmt.getRValue());
-            addPFGEdge(right, left);
-            return null;
-        }
-        public Void visit(LoadField stmt) {
-            if(stmt.isStatic()) {
-                Pointer left = csManager.getCSVar(context, stmt.getLValue());
-                Pointer right = csManager.getStaticField(stmt.getFieldRef().resolve());
-                addPFGEdge(right, left);
-            }
-            return null;
+    /**
+     * @return the objects in pts that can be propagated to given pointer.
+     */
+    private PointsToSet filter(Pointer pointer, PointsToSet pts) {
+        Predicate<CSObj> filter = filters.isEmpty() ? null : filters.get(pointer);
+        if (filter == null) {
+            return pts;
         }
-        public Void visit(StoreField stmt) {
-            if(stmt.isStatic()) {
-                Pointer left = csManager.getStaticField(stmt.getFieldRef().resolve());
-                Pointer right = csManager.getCSVar(context, stmt.getRValue());
-                addPFGEdge(right, left);
-            }
-            return null;
-        }
-        public Void visit(Invoke stmt) {
-            if(stmt.isStatic()) {
-                CSCallSite csCallSite = csManager.getCSCallSite(context, stmt);
-                JMethod m = stmt.getMethodRef().resolve();
-                Context ct = contextSelector.selectContext(csCallSite, m);
-                CSMethod csM = csManager.getCSMethod(ct, m);
-                if(callGraph.addEdge(new Edge<CSCallSite, CSMethod>(CallGraphs.getCallKind(stmt), csCallSite, csM))) {
-                    addReachable(csM);
-                    for(int i = 0; i < m.getIR().getParams().size(); i ++) {
-                        Var p = m.getIR().getParam(i);
-                        Var a = stmt.getInvokeExp().getArg(i);
-                        addPFGEdge(csManager.getCSVar(context, a), csManager.getCSVar(ct, p));
-                    }
-                    for(Var mr : m.getIR().getReturnVars()) {
-                        Var r = stmt.getResult();
-                        addPFGEdge(csManager.getCSVar(ct, mr), csManager.getCSVar(context, r));
-                        if(taintAnalysis.isSource(m, r.getType())) {
-                            System.out.println("get source");
-                            var taintObj = taintAnalysis.makeTaint(stmt, r.getType());
-                            var taintCSObj = csManager.getCSObj(contextSelector.getEmptyContext(), taintObj);
-                            csManager.getCSVar(context, r).getPointsToSet().addObject(taintCSObj);
-                        }
-                    }
-                }
+        PointsToSet result = ptsFactory.make();
+        for (CSObj obj : pts) {
+            if (filter.test(obj)) {
+                result.addObject(obj);
             }
-            return null;
         }
+        return result;
     }
 
     /**
      * Adds an edge "source -> target" to the PFG.
      */
-    private void addPFGEdge(Pointer source, Pointer target) {
+    public void addPFGEdge(Pointer source, Pointer target) {
         // LAB6
         if(pointerFlowGraph.addEdge(source, target)) {
+            // the plugin is notified of the original edge even if the edge
+            // between the representatives exists, e.g., when source and
+            // target have been merged by cycle collapsing
+            plugin.onNewPFGEdge(source, target);
             PointsToSet set = source.getPointsToSet();
             if(set != null && !set.isEmpty())
                 workList.addEntry(target, set);
@@ -224,41 +401,117 @@ public class Solver {
         // LAB6
         while (!workList.isEmpty()) {
             WorkList.Entry entry = workList.pollEntry();
-            PointsToSet delta = PointsToSetFactory.make();
-            Pointer n = entry.pointer();
-            for(CSObj obj: entry.pointsToSet()) {
-                if(!n.getPointsToSet().contains(obj))
-                    delta.addObject(obj);
-            }
-            propagate(n, delta);
-            if(n instanceof CSVar csn) {
-                for(CSObj o: delta) {
-                    Var x = csn.getVar();
-                    for (StoreField sf : x.getStoreFields()) {
-                        Pointer y = csManager.getCSVar(csn.getContext(), sf.getRValue());
-                        JField f = sf.getFieldRef().resolve();
-                        Pointer of = csManager.getInstanceField(o, f);
-                        addPFGEdge(y, of);
-                    }
-                    for(LoadField lf: x.getLoadFields()) {
-                        Pointer y = csManager.getCSVar(csn.getContext(), lf.getLValue());
-                        JField f = lf.getFieldRef().resolve();
-                        Pointer of = csManager.getInstanceField(o, f);
-                        addPFGEdge(of, y);
+            Pointer n = pointerFlowGraph.getRep(entry.pointer());
+            PointsToSet delta = propagate(n, entry.pointsToSet());
+            if (!delta.isEmpty()) {
+                for (Pointer p : pointerFlowGraph.getMembersOf(n)) {
+                    if (p instanceof CSVar csVar) {
+                        processNewPointsTo(csVar, delta);
                     }
-                    for (StoreArray sa : x.getStoreArrays()) {
-                        Pointer y = csManager.getCSVar(csn.getContext(), sa.getRValue());
-                        ArrayIndex ai = csManager.getArrayIndex(o);
-                        addPFGEdge(y, ai);
-                    }
-                    for (LoadArray la : x.getLoadArrays()) {
-                        Pointer y = csManager.getCSVar(csn.getContext(), la.getLValue());
-                        ArrayIndex ai = csManager.getArrayIndex(o);
-                        addPFGEdge(ai, y);
-                    }
-                    processCall(csn, o);
                 }
             }
+            if (!cycleCandidates.isEmpty()) {
+                collapseCycles();
+            }
+        }
+    }
+
+    /**
+     * Processes the newly discovered objects of given variable.
+     */
+    private void processNewPointsTo(CSVar csVar, PointsToSet delta) {
+        processInstanceStmts(csVar, delta);
+        plugin.onNewPointsToSet(csVar, delta);
+    }
+
+    /**
+     * Searches the cycles from the candidate pointers and merges each
+     * cycle into one representative pointer, which is known as lazy
+     * cycle detection. After merging, all pointers in a cycle share
+     * the same points-to set, so that the objects are propagated once
+     * instead of being pushed around the cycle.
+     */
+    private void collapseCycles() {
+        for (Pointer candidate : cycleCandidates) {
+            for (Set<Pointer> cycle : pointerFlowGraph.findCycles(candidate)) {
+                if (cycle.stream().noneMatch(filters::containsKey)) {
+                    collapseCycle(cycle);
+                }
+            }
+        }
+        cycleCandidates.clear();
+    }
+
+    private void collapseCycle(Set<Pointer> cycle) {
+        PointsToSet union = ptsFactory.make();
+        for (Pointer p : cycle) {
+            union.addAll(p.getPointsToSet());
+        }
+        // for each representative in the cycle, collect the objects it
+        // gains from the others, together with the pointers it represents
+        // and its successors, which also gain these objects
+        Map<Pointer, PointsToSet> gains = Maps.newMap();
+        Map<Pointer, List<Pointer>> members = Maps.newMap();
+        Map<Pointer, List<Pointer>> succs = Maps.newMap();
+        for (Pointer p : cycle) {
+            members.put(p, new ArrayList<>(pointerFlowGraph.getMembersOf(p)));
+            PointsToSet pts = ptsFactory.make();
+            pts.addAll(p.getPointsToSet());
+            PointsToSet gain = pts.addAllDiff(union);
+            if (!gain.isEmpty()) {
+                gains.put(p, gain);
+                succs.put(p, new ArrayList<>(pointerFlowGraph.getSuccsOf(p)));
+            }
+        }
+        pointerFlowGraph.merge(cycle.iterator().next(), cycle);
+        members.values().forEach(ms -> ms.forEach(m -> m.setPointsToSet(union)));
+        gains.forEach((p, gain) -> {
+            for (Pointer m : members.get(p)) {
+                if (m instanceof CSVar csVar) {
+                    processNewPointsTo(csVar, gain);
+                }
+            }
+            for (Pointer succ : succs.get(p)) {
+                workList.addEntry(pointerFlowGraph.getRep(succ), gain);
+            }
+        });
+    }
+
+    /**
+     * Processes the instance field/array accesses and instance calls
+     * on given variable for the newly discovered objects of the variable.
+     */
+    private void processInstanceStmts(CSVar csVar, PointsToSet delta) {
+        Context c = csVar.getContext();
+        Var x = csVar.getVar();
+        for (StoreField sf : x.getStoreFields()) {
+            Pointer y = csManager.getCSVar(c, sf.getRValue());
+            JField f = sf.getFieldRef().resolve();
+            for (CSObj o : delta) {
+                addPFGEdge(y, csManager.getInstanceField(o, f));
+            }
+        }
+        for (LoadField lf : x.getLoadFields()) {
+            Pointer y = csManager.getCSVar(c, lf.getLValue());
+            JField f = lf.getFieldRef().resolve();
+            for (CSObj o : delta) {
+                addPFGEdge(csManager.getInstanceField(o, f), y);
+            }
+        }
+        for (StoreArray sa : x.getStoreArrays()) {
+            Pointer y = csManager.getCSVar(c, sa.getRValue());
+            for (CSObj o : delta) {
+                addPFGEdge(y, csManager.getArrayIndex(o));
+            }
+        }
+        for (LoadArray la : x.getLoadArrays()) {
+            Pointer y = csManager.getCSVar(c, la.getLValue());
+            for (CSObj o : delta) {
+                addPFGEdge(csManager.getArrayIndex(o), y);
+            }
+        }
+        for (CSObj o : delta) {
+            processCall(csVar, o);
         }
     }
 
@@ -268,13 +521,40 @@ public class Solver {
      */
     private PointsToSet propagate(Pointer pointer, PointsToSet pointsToSet) {
         // LAB6
-        if(pointsToSet.isEmpty())
-            return null;
-        for(CSObj obj: pointsToSet)
-            pointer.getPointsToSet().addObject(obj);
-        for(Pointer t: pointerFlowGraph.getSuccsOf(pointer))
-            workList.addEntry(t, pointsToSet);
-        return pointer.getPointsToSet();
+        PointsToSet delta = pointer.getPointsToSet()
+                .addAllDiff(filter(pointer, pointsToSet));
+        if (!delta.isEmpty()) {
+            for (Pointer succ : pointerFlowGraph.getSuccsOf(pointer)) {
+                succ = pointerFlowGraph.getRep(succ);
+                if (succ == pointer ||
+                        (collapseCycles && isCycleCandidate(pointer, succ))) {
+                    continue;
+                }
+                workList.addEntry(succ, delta);
+            }
+        }
+        return delta;
+    }
+
+    /**
+     * Checks if PFG edge "source -> target" may be in a cycle, i.e.,
+     * the points-to sets of source and target are equal. Each edge is
+     * checked only once, and the target is recorded for cycle searching.
+     *
+     * @return true if the points-to sets are equal (thus target needs
+     * no propagation from source), otherwise false.
+     */
+    private boolean isCycleCandidate(Pointer source, Pointer target) {
+        PointsToSet sourcePts = source.getPointsToSet();
+        PointsToSet targetPts = target.getPointsToSet();
+        if (sourcePts.size() != targetPts.size() ||
+                !targetPts.getObjects().containsAll(sourcePts.getObjects())) {
+            return false;
+        }
+        if (checkedEdges.put(source, target)) {
+            cycleCandidates.add(target);
+        }
+        return true;
     }
 
     /**
@@ -287,31 +567,77 @@ public class Solver {
         // LAB6
         Var var = recv.getVar();
         for(Invoke invoke : var.getInvokes()) {
-            // dispatch m
-            JMethod m = resolveCallee(recvObj, invoke);
-            // select ct
             Context c = recv.getContext();
             CSCallSite csCallSite = csManager.getCSCallSite(c, invoke);
-            Context ct = contextSelector.selectContext(csCallSite, recvObj, m);
-            // handle this point
-            Pointer tp = csManager.getCSVar(ct, m.getIR().getThis());
-            workList.addEntry(tp, PointsToSetFactory.make(recvObj));
-            // l -> ct m
-            CSMethod csM = csManager.getCSMethod(ct, m);
-            if(callGraph.addEdge(new Edge<CSCallSite, CSMethod>(CallGraphs.getCallKind(invoke), csCallSite, csM))) {
-                addReachable(csM);
-                for(int i = 0; i < m.getIR().getParams().size(); i ++) {
-                    Var p = m.getIR().getParam(i);
-                    Var a = invoke.getInvokeExp().getArg(i);
-                    addPFGEdge(csManager.getCSVar(c, a), csManager.getCSVar(ct, p));
-                }
-                for(Var mr : m.getIR().getReturnVars()) {
-                    Var r = invoke.getResult();
-                    if(r != null)
-                        addPFGEdge(csManager.getCSVar(ct, mr), csManager.getCSVar(c, r));
-                }
+            if (plugin.onNewInstanceCall(csCallSite, recvObj)) {
+                notifyHandledCall(csCallSite, recvObj);
+            } else {
+                processInstanceCall(csCallSite, recvObj);
             }
+        }
+    }
 
+    /**
+     * Dispatches an instance call on given receiver object, and connects
+     * the call site to the callee. Plugins which handle the calls by
+     * themselves may call this method to fall back to the callee,
+     * see {@link Plugin#onNewInstanceCall}.
+     *
+     * @param csCallSite the call site
+     * @param recvObj    the receiver object of the call
+     */
+    public void processInstanceCall(CSCallSite csCallSite, CSObj recvObj) {
+        Context c = csCallSite.getContext();
+        Invoke invoke = csCallSite.getCallSite();
+        // dispatch m
+        JMethod m = resolveCallee(recvObj, invoke);
+        // select ct
+        Context ct = contextSelector.selectContext(csCallSite, recvObj, m);
+        // handle this point
+        Pointer tp = csManager.getCSVar(ct, m.getIR().getThis());
+        workList.addEntry(tp, ptsFactory.make(recvObj));
+        // l -> ct m
+        CSMethod csM = csManager.getCSMethod(ct, m);
+        Edge<CSCallSite, CSMethod> edge = new Edge<>(
+                CallGraphs.getCallKind(invoke), csCallSite, csM);
+        if(callGraph.addEdge(edge)) {
+            addReachable(csM);
+            for(int i = 0; i < m.getIR().getParams().size(); i ++) {
+                Var p = m.getIR().getParam(i);
+                Var a = invoke.getInvokeExp().getArg(i);
+                addPFGEdge(csManager.getCSVar(c, a), csManager.getCSVar(ct, p));
+            }
+            for(Var mr : m.getIR().getReturnVars()) {
+                Var r = invoke.getResult();
+                if(r != null)
+                    addPFGEdge(csManager.getCSVar(ct, mr), csManager.getCSVar(c, r));
+            }
+            // the plugins have been notified of the edge
+            // if the call was handled by a plugin before
+            if (!handledCallEdges.contains(edge)) {
+                plugin.onNewCallEdge(edge);
+            }
+        }
+    }
+
+    /**
+     * Notifies the plugins of the call edge of an instance call which is
+     * handled by a plugin, so that the plugins which work on call edges
+     * (e.g., taint analysis) still see the call. The edge is not added to
+     * the call graph, and the callee is not analyzed, as the plugin which
+     * handles the call models the effects of the callee.
+     */
+    private void notifyHandledCall(CSCallSite csCallSite, CSObj recvObj) {
+        JMethod m = resolveCallee(recvObj, csCallSite.getCallSite());
+        if (m == null) {
+            return;
+        }
+        Context ct = contextSelector.selectContext(csCallSite, recvObj, m);
+        Edge<CSCallSite, CSMethod> edge = new Edge<>(
+                CallGraphs.getCallKind(csCallSite.getCallSite()),
+                csCallSite, csManager.getCSMethod(ct, m));
+        if (handledCallEdges.add(edge)) {
+            plugin.onNewCallEdge(edge);
         }
     }
 
@@ -0,0 +1,101 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin;
+
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+
+/**
+ * Analysis plugin which is notified by the pointer analysis solver
+ * about the events during solving, so that it can contribute to
+ * (or make use of) the pointer analysis on the fly.
+ * All methods do nothing by default.
+ */
+public interface Plugin {
+
+    /**
+     * Invoked when the solver starts.
+     */
+    default void onStart() {
+    }
+
+    /**
+     * Invoked when the solver finishes.
+     */
+    default void onFinish() {
+    }
+
+    /**
+     * Invoked when a context-sensitive method becomes reachable.
+     */
+    default void onNewCSMethod(CSMethod csMethod) {
+    }
+
+    /**
+     * Invoked when a new call graph edge is discovered. This method is
+     * also invoked for the instance calls handled by plugins (see
+     * {@link #onNewInstanceCall}), with the edge to the resolved callee,
+     * although such edges are not added to the call graph.
+     */
+    default void onNewCallEdge(Edge<CSCallSite, CSMethod> edge) {
+    }
+
+    /**
+     * Invoked when the solver is about to resolve an instance call
+     * on a new receiver object. A plugin may model the call by itself,
+     * e.g., by a summary of the callee.
+     *
+     * @return true if the call is handled by this plugin, then the solver
+     * neither analyzes the callee nor adds the call edge to the call graph,
+     * but it still notifies the plugins of the edge by {@link #onNewCallEdge}.
+     * A plugin which handles the calls may fall back to the callee later by
+     * {@link pascal.taie.analysis.pta.cs.Solver#processInstanceCall}.
+     */
+    default boolean onNewInstanceCall(CSCallSite csCallSite, CSObj recvObj) {
+        return false;
+    }
+
+    /**
+     * Invoked when a new edge is added to the pointer flow graph.
+     * The edge is given by its original endpoints, and this method is
+     * invoked even if the pointer flow graph already has an edge between
+     * the representatives of the endpoints (see cycle collapsing), but
+     * only once for each pair of original endpoints.
+     */
+    default void onNewPFGEdge(Pointer source, Pointer target) {
+    }
+
+    /**
+     * Invoked when the points-to set of a variable changes.
+     *
+     * @param csVar the variable whose points-to set changes.
+     * @param pts   the objects newly added to the points-to set of csVar.
+     */
+    default void onNewPointsToSet(CSVar csVar, PointsToSet pts) {
+    }
+}
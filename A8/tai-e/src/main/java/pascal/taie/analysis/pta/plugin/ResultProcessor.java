@@ -27,6 +27,7 @@ import org.apache.logging.log4j.Logger;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
 import pascal.taie.analysis.pta.plugin.taint.TaintFlow;
+import pascal.taie.analysis.pta.plugin.taint.TaintWitnesses;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.config.AnalysisOptions;
 import pascal.taie.util.AnalysisException;
@@ -234,7 +235,10 @@ public class ResultProcessor {
      */
     private static Set<TaintFlow> getTaintFlows(PointerAnalysisResult result) {
         for (String key : result.getKeys()) {
-            if (key.contains("Taint")) { // adapt different taint analyses
+            // adapt different taint analyses, but skip the witnesses
+            // of taint flows, which are stored along with the flows
+            if (key.contains("Taint") &&
+                    !key.equals(TaintWitnesses.class.getName())) {
                 return result.getResult(key);
             }
         }
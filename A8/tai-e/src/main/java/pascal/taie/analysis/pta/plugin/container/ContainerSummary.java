@@ -0,0 +1,568 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.container;
+
+import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.heap.MockObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.cs.Solver;
+import pascal.taie.analysis.pta.plugin.Plugin;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.ir.exp.InvokeInstanceExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.proginfo.MethodRef;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.ArrayType;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.language.type.ReferenceType;
+import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.collection.TwoKeyMap;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Models the common methods of the JDK containers (i.e., the collections
+ * and maps in package {@code java.util}) by summaries, so that the
+ * implementations of the containers need not be analyzed.
+ * <p>
+ * The contents of a container object are modeled as one abstract element
+ * field, i.e., the {@link pascal.taie.analysis.pta.core.cs.element.ArrayIndex}
+ * of the object. The keys of a map are the contents of its key set view.
+ * Iterators, key sets, value collections, entry sets and the arrays
+ * returned by {@code toArray()} are modeled as mock view objects of their
+ * containers, and so is the entry of a map, which stands for all entries
+ * of the map. The calls on the views are always handled here, and the
+ * calls that are not summarized are ignored, as the views have no
+ * implementations.
+ * <p>
+ * The copy constructors (e.g., {@code new ArrayList<>(c)}) are summarized
+ * as addAll/putAll, and so are the static factories which return
+ * containers backed by, or copied from, their arguments (e.g.,
+ * {@code Arrays.asList(a)} and {@code Collections.unmodifiableList(l)}).
+ * The factories themselves are still analyzed, and the contents of their
+ * arguments are added to the containers they return.
+ * <p>
+ * The summarized calls are not analyzed, but the plugins are still
+ * notified of their call edges (e.g., for the taint rules on container
+ * methods). The calls to the other methods of the containers are analyzed
+ * as usual. As the analyzed methods do not see the contents stored by
+ * the summaries, a container falls back to its implementation when a
+ * method which may expose its contents (e.g., {@code List.subList()} and
+ * {@code Iterable.forEach()}) is called on it: the summarized calls on
+ * the container so far are analyzed as usual, and so are its later calls,
+ * along with their summaries. The views obtained before the fallback, and
+ * the containers whose contents are copied from it, do not see the
+ * contents that are added only by its analyzed methods.
+ */
+public class ContainerSummary implements Plugin {
+
+    /**
+     * Kinds of the view objects.
+     */
+    private enum ViewKind {
+        ITERATOR, KEY_SET, VALUES, ENTRY_SET, ENTRY, ARRAY
+    }
+
+    private static final String VIEW_DESC = "ContainerViewObj";
+
+    private final Solver solver;
+
+    private final CSManager csManager;
+
+    private final TypeSystem typeSystem;
+
+    private final ClassType collection;
+
+    private final ClassType map;
+
+    private final ClassType object;
+
+    /**
+     * Map from containers and view kinds to the view objects.
+     */
+    private final TwoKeyMap<Obj, ViewKind, Obj> views = Maps.newTwoKeyMap();
+
+    /**
+     * Map from view objects to their kinds.
+     */
+    private final Map<Obj, ViewKind> viewKinds = Maps.newMap();
+
+    /**
+     * Map from the arguments of addAll/putAll calls to the receiver containers.
+     */
+    private final MultiMap<CSVar, CSObj> addAllArgs = Maps.newMultiMap();
+
+    /**
+     * Map from the results of the container factory calls to the
+     * arguments whose contents are added to the returned containers.
+     */
+    private final MultiMap<CSVar, CSVar> factoryArgs = Maps.newMultiMap();
+
+    /**
+     * Map from the results of the container factory calls to the
+     * arguments which are the elements of the returned containers.
+     */
+    private final MultiMap<CSVar, ElementArg> factoryElements = Maps.newMultiMap();
+
+    /**
+     * Map from the arguments of toArray(Object[]) calls to the receiver
+     * containers, whose contents are stored in the argument arrays.
+     */
+    private final MultiMap<CSVar, CSObj> toArrayArgs = Maps.newMultiMap();
+
+    /**
+     * Map from containers to their summarized call sites,
+     * which are analyzed if the containers fall back.
+     */
+    private final MultiMap<CSObj, CSCallSite> summarizedCalls = Maps.newMultiMap();
+
+    /**
+     * Containers that fall back to their implementations.
+     */
+    private final Set<CSObj> fallbacks = Sets.newSet();
+
+    public ContainerSummary(Solver solver) {
+        this.solver = solver;
+        csManager = solver.getCSManager();
+        typeSystem = World.get().getTypeSystem();
+        collection = typeSystem.getClassType("java.util.Collection");
+        map = typeSystem.getClassType("java.util.Map");
+        object = typeSystem.getClassType("java.lang.Object");
+    }
+
+    @Override
+    public boolean onNewInstanceCall(CSCallSite csCallSite, CSObj recvObj) {
+        Context context = csCallSite.getContext();
+        Invoke callSite = csCallSite.getCallSite();
+        String subsig = callSite.getMethodRef().getSubsignature().toString();
+        ViewKind kind = viewKinds.get(recvObj.getObject());
+        if (kind != null) {
+            // view objects have no implementations, thus the calls
+            // that are not summarized are ignored
+            switch (kind) {
+                case ITERATOR -> handleIteratorCall(context, callSite, subsig, recvObj);
+                case ENTRY -> handleEntryCall(context, callSite, subsig, recvObj);
+                // the calls on arrays are the ones of java.lang.Object
+                case ARRAY -> {
+                    return false;
+                }
+                default -> handleCollectionCall(context, callSite, subsig, recvObj);
+            }
+            return true;
+        }
+        boolean summarized;
+        if (isJDKContainer(recvObj, collection)) {
+            summarized = handleCollectionCall(context, callSite, subsig, recvObj);
+        } else if (isJDKContainer(recvObj, map)) {
+            summarized = handleMapCall(context, callSite, subsig, recvObj);
+        } else {
+            return false;
+        }
+        if (summarized) {
+            if (fallbacks.contains(recvObj)) {
+                return false;
+            }
+            summarizedCalls.put(recvObj, csCallSite);
+            return true;
+        }
+        if (exposesContents(callSite) && fallbacks.add(recvObj)) {
+            for (CSCallSite summarizedCall : List.copyOf(summarizedCalls.get(recvObj))) {
+                solver.processInstanceCall(summarizedCall, recvObj);
+            }
+            summarizedCalls.removeAll(recvObj);
+        }
+        return false;
+    }
+
+    /**
+     * @return true if given call, which is not summarized, may expose the
+     * contents of its receiver container, i.e., the callee returns a
+     * reference, or it takes an argument which is neither primitive nor
+     * an Object nor a container (e.g., a function or an array). The calls
+     * on {@code this} within the methods of the containers are part of
+     * the calls to these methods, thus they are not considered.
+     */
+    private boolean exposesContents(Invoke callSite) {
+        if (callSite.getInvokeExp() instanceof InvokeInstanceExp e &&
+                e.getBase() == callSite.getContainer().getIR().getThis()) {
+            return false;
+        }
+        MethodRef methodRef = callSite.getMethodRef();
+        if (methodRef.getReturnType() instanceof ReferenceType) {
+            return true;
+        }
+        for (Type type : methodRef.getParameterTypes()) {
+            if (type instanceof ReferenceType && !type.equals(object) &&
+                    !(type instanceof ClassType &&
+                            (typeSystem.isSubtype(collection, type) ||
+                                    typeSystem.isSubtype(map, type)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void onNewCallEdge(Edge<CSCallSite, CSMethod> edge) {
+        JMethod callee = edge.getCallee().getMethod();
+        Invoke callSite = edge.getCallSite().getCallSite();
+        Var result = callSite.getResult();
+        if (!callee.isStatic() || result == null) {
+            return;
+        }
+        Context context = edge.getCallSite().getContext();
+        CSVar csResult = csManager.getCSVar(context, result);
+        String className = callee.getDeclaringClass().getName();
+        String name = callee.getName();
+        boolean copyFactory = switch (className) {
+            case "java.util.Arrays" -> name.equals("asList");
+            case "java.util.Collections" -> name.startsWith("unmodifiable") ||
+                    name.startsWith("synchronized") ||
+                    name.startsWith("checked");
+            case "java.util.List", "java.util.Set", "java.util.Map" ->
+                    name.equals("copyOf") ||
+                            (name.equals("of") && callee.getParamCount() == 1 &&
+                                    callee.getParamType(0) instanceof ArrayType);
+            default -> false;
+        };
+        if (copyFactory) {
+            factoryArgs.put(csResult, getArg(context, callSite, 0));
+        } else if (name.equals("of") && (className.equals("java.util.List") ||
+                className.equals("java.util.Set") ||
+                className.equals("java.util.Map"))) {
+            boolean isMap = className.equals("java.util.Map");
+            for (int i = 0; i < callee.getParamCount(); ++i) {
+                // the arguments of Map.of() are alternate keys and values
+                factoryElements.put(csResult, new ElementArg(
+                        getArg(context, callSite, i), isMap && i % 2 == 0));
+            }
+        } else {
+            return;
+        }
+        PointsToSet pts = csResult.getPointsToSet();
+        if (pts != null) {
+            handleFactoryResult(csResult, pts);
+        }
+    }
+
+    @Override
+    public void onNewPointsToSet(CSVar csVar, PointsToSet pts) {
+        for (CSObj container : addAllArgs.get(csVar)) {
+            addAll(pts, container);
+        }
+        for (CSObj container : toArrayArgs.get(csVar)) {
+            copyToArrays(container, pts);
+        }
+        handleFactoryResult(csVar, pts);
+    }
+
+    /**
+     * Adds the contents of the factory arguments to the containers
+     * returned by the factory call.
+     */
+    private void handleFactoryResult(CSVar result, PointsToSet pts) {
+        for (CSObj container : pts) {
+            boolean isMap = isJDKContainer(container, map);
+            if (!isMap && !isJDKContainer(container, collection)) {
+                continue;
+            }
+            for (CSVar arg : factoryArgs.get(result)) {
+                addAllArg(arg, container);
+            }
+            for (ElementArg elem : factoryElements.get(result)) {
+                CSObj target = isMap && elem.isKey() ?
+                        getView(container, ViewKind.KEY_SET) : container;
+                solver.addPFGEdge(elem.arg(), csManager.getArrayIndex(target));
+            }
+        }
+    }
+
+    private boolean isJDKContainer(CSObj csObj, ClassType containerType) {
+        Type type = csObj.getObject().getType();
+        return containerType != null &&
+                type instanceof ClassType &&
+                type.getName().startsWith("java.util.") &&
+                typeSystem.isSubtype(containerType, type);
+    }
+
+    private boolean handleCollectionCall(Context context, Invoke callSite,
+                                         String subsig, CSObj coll) {
+        Pointer elems = csManager.getArrayIndex(coll);
+        switch (subsig) {
+            case "boolean add(java.lang.Object)",
+                    "boolean offer(java.lang.Object)",
+                    "boolean offerFirst(java.lang.Object)",
+                    "boolean offerLast(java.lang.Object)",
+                    "void push(java.lang.Object)",
+                    "void addFirst(java.lang.Object)",
+                    "void addLast(java.lang.Object)" ->
+                    addArgFlow(context, callSite, 0, elems);
+            case "void add(int,java.lang.Object)" ->
+                    addArgFlow(context, callSite, 1, elems);
+            case "java.lang.Object set(int,java.lang.Object)" -> {
+                addArgFlow(context, callSite, 1, elems);
+                addResultFlow(context, callSite, elems);
+            }
+            case "java.lang.Object get(int)",
+                    "java.lang.Object remove(int)",
+                    "java.lang.Object remove()",
+                    "java.lang.Object poll()",
+                    "java.lang.Object pollFirst()",
+                    "java.lang.Object pollLast()",
+                    "java.lang.Object peek()",
+                    "java.lang.Object peekFirst()",
+                    "java.lang.Object peekLast()",
+                    "java.lang.Object pop()",
+                    "java.lang.Object element()",
+                    "java.lang.Object getFirst()",
+                    "java.lang.Object getLast()",
+                    "java.lang.Object removeFirst()",
+                    "java.lang.Object removeLast()" ->
+                    addResultFlow(context, callSite, elems);
+            case "java.util.Iterator iterator()",
+                    "java.util.ListIterator listIterator()" ->
+                    addView(context, callSite, coll, ViewKind.ITERATOR);
+            case "java.lang.Object[] toArray()" ->
+                    addView(context, callSite, coll, ViewKind.ARRAY);
+            case "java.lang.Object[] toArray(java.lang.Object[])" -> {
+                // the contents are stored in the argument array,
+                // which is returned as the result
+                CSVar arg = getArg(context, callSite, 0);
+                if (toArrayArgs.put(arg, coll) && arg.getPointsToSet() != null) {
+                    copyToArrays(coll, arg.getPointsToSet());
+                }
+                addResultFlow(context, callSite, arg);
+            }
+            case "boolean addAll(java.util.Collection)",
+                    "void <init>(java.util.Collection)",
+                    "void <init>(java.util.SortedSet)" ->
+                    addAllArg(getArg(context, callSite, 0), coll);
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean handleMapCall(Context context, Invoke callSite,
+                                  String subsig, CSObj mapObj) {
+        Pointer values = csManager.getArrayIndex(mapObj);
+        switch (subsig) {
+            case "java.lang.Object put(java.lang.Object,java.lang.Object)",
+                    "java.lang.Object putIfAbsent(java.lang.Object,java.lang.Object)" -> {
+                addArgFlow(context, callSite, 0, csManager.getArrayIndex(
+                        getView(mapObj, ViewKind.KEY_SET)));
+                addArgFlow(context, callSite, 1, values);
+                addResultFlow(context, callSite, values);
+            }
+            case "java.lang.Object get(java.lang.Object)",
+                    "java.lang.Object remove(java.lang.Object)" ->
+                    addResultFlow(context, callSite, values);
+            case "java.lang.Object getOrDefault(java.lang.Object,java.lang.Object)" -> {
+                addResultFlow(context, callSite, values);
+                addResultFlow(context, callSite, getArg(context, callSite, 1));
+            }
+            case "java.util.Set keySet()" ->
+                    addView(context, callSite, mapObj, ViewKind.KEY_SET);
+            case "java.util.Collection values()" ->
+                    addView(context, callSite, mapObj, ViewKind.VALUES);
+            case "java.util.Set entrySet()" ->
+                    addView(context, callSite, mapObj, ViewKind.ENTRY_SET);
+            case "void putAll(java.util.Map)",
+                    "void <init>(java.util.Map)",
+                    "void <init>(java.util.SortedMap)" ->
+                    addAllArg(getArg(context, callSite, 0), mapObj);
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void handleIteratorCall(Context context, Invoke callSite,
+                                    String subsig, CSObj iterator) {
+        switch (subsig) {
+            case "java.lang.Object next()",
+                    "java.lang.Object previous()" ->
+                    addResultFlow(context, callSite,
+                            csManager.getArrayIndex(iterator));
+        }
+    }
+
+    /**
+     * Handles the calls on the entry of a map, which stands for all
+     * entries of the map.
+     */
+    private void handleEntryCall(Context context, Invoke callSite,
+                                 String subsig, CSObj entry) {
+        CSObj mapObj = getContainer(entry);
+        Pointer values = csManager.getArrayIndex(mapObj);
+        switch (subsig) {
+            case "java.lang.Object getKey()" ->
+                    addResultFlow(context, callSite, csManager.getArrayIndex(
+                            getView(mapObj, ViewKind.KEY_SET)));
+            case "java.lang.Object getValue()" ->
+                    addResultFlow(context, callSite, values);
+            case "java.lang.Object setValue(java.lang.Object)" -> {
+                addArgFlow(context, callSite, 0, values);
+                addResultFlow(context, callSite, values);
+            }
+        }
+    }
+
+    private CSVar getArg(Context context, Invoke callSite, int i) {
+        return csManager.getCSVar(context, callSite.getInvokeExp().getArg(i));
+    }
+
+    private void addArgFlow(Context context, Invoke callSite,
+                            int i, Pointer target) {
+        solver.addPFGEdge(getArg(context, callSite, i), target);
+    }
+
+    private void addResultFlow(Context context, Invoke callSite, Pointer source) {
+        Var result = callSite.getResult();
+        if (result != null) {
+            solver.addPFGEdge(source, csManager.getCSVar(context, result));
+        }
+    }
+
+    /**
+     * Makes the result of the call point to given kind of view of container.
+     */
+    private void addView(Context context, Invoke callSite,
+                         CSObj container, ViewKind kind) {
+        CSObj view = getView(container, kind);
+        switch (kind) {
+            // the keys of a map are stored in its key set view
+            case KEY_SET -> {
+            }
+            // the element of an entry set is the entry of its map
+            case ENTRY_SET -> solver.addPointsTo(csManager.getArrayIndex(view),
+                    getView(container, ViewKind.ENTRY));
+            // the elements of the other views are the elements of their containers
+            default -> solver.addPFGEdge(csManager.getArrayIndex(container),
+                    csManager.getArrayIndex(view));
+        }
+        Var result = callSite.getResult();
+        if (result != null) {
+            solver.addPointsTo(csManager.getCSVar(context, result), view);
+        }
+    }
+
+    /**
+     * @return the view object of given kind of container. The view object
+     * is under the same heap context as the container.
+     */
+    private CSObj getView(CSObj container, ViewKind kind) {
+        Obj view = views.computeIfAbsent(container.getObject(), kind, (c, k) -> {
+            Obj obj = new MockObj(VIEW_DESC, c, getViewType(k));
+            viewKinds.put(obj, k);
+            return obj;
+        });
+        return csManager.getCSObj(container.getContext(), view);
+    }
+
+    /**
+     * @return the container of given view object.
+     */
+    private CSObj getContainer(CSObj view) {
+        Obj container = (Obj) ((MockObj) view.getObject()).getAllocation();
+        return csManager.getCSObj(view.getContext(), container);
+    }
+
+    private Type getViewType(ViewKind kind) {
+        return switch (kind) {
+            case ITERATOR -> typeSystem.getClassType("java.util.Iterator");
+            case KEY_SET, ENTRY_SET -> typeSystem.getClassType("java.util.Set");
+            case VALUES -> typeSystem.getClassType("java.util.Collection");
+            case ENTRY -> typeSystem.getClassType("java.util.Map$Entry");
+            case ARRAY -> typeSystem.getArrayType(object, 1);
+        };
+    }
+
+    /**
+     * Records the argument of addAll/putAll call (or copy constructor),
+     * whose contents are added to given container.
+     */
+    private void addAllArg(CSVar arg, CSObj container) {
+        if (addAllArgs.put(arg, container) && arg.getPointsToSet() != null) {
+            addAll(arg.getPointsToSet(), container);
+        }
+    }
+
+    /**
+     * Adds the contents of the containers, views and arrays
+     * in given points-to set to given container.
+     */
+    private void addAll(PointsToSet pts, CSObj container) {
+        for (CSObj source : pts) {
+            if (viewKinds.containsKey(source.getObject()) ||
+                    source.getObject().getType() instanceof ArrayType ||
+                    isJDKContainer(source, collection) ||
+                    isJDKContainer(source, map)) {
+                solver.addPFGEdge(csManager.getArrayIndex(source),
+                        csManager.getArrayIndex(container));
+                if (isJDKContainer(source, map) && isJDKContainer(container, map)) {
+                    solver.addPFGEdge(
+                            csManager.getArrayIndex(getView(source, ViewKind.KEY_SET)),
+                            csManager.getArrayIndex(getView(container, ViewKind.KEY_SET)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Stores the contents of given container to the arrays
+     * in given points-to set.
+     */
+    private void copyToArrays(CSObj container, PointsToSet pts) {
+        for (CSObj array : pts) {
+            if (array.getObject().getType() instanceof ArrayType) {
+                solver.addPFGEdge(csManager.getArrayIndex(container),
+                        csManager.getArrayIndex(array));
+            }
+        }
+    }
+
+    /**
+     * Argument of a container factory call which is an element
+     * (or a key if isKey is true) of the returned container.
+     */
+    private record ElementArg(CSVar arg, boolean isKey) {
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.cs.Solver;
+import pascal.taie.analysis.pta.plugin.Plugin;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.exp.InvokeExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Taint analysis which runs on top of the result of pointer analysis.
+ * <p>
+ * During pointer analysis, this plugin only records the PFG edges and
+ * the call edges, and no taint objects are introduced to the solver.
+ * After pointer analysis finishes, a taint flow graph, which consists
+ * of the PFG edges and the transfer edges at the calls to the transfer
+ * methods, is built and only taint objects are propagated on it.
+ * As the taint flow graph does not depend on the taint configuration
+ * except the transfer edges, the analysis can be re-run with different
+ * configurations by {@link #run(String)} without re-solving the
+ * pointer analysis.
+ * <p>
+ * Different from {@link TaintAnalysiss}, the taint objects are not
+ * used to resolve the calls and the field/array accesses on them.
+ */
+public class SparseTaintAnalysis implements Plugin {
+
+    private static final Logger logger = LogManager.getLogger(SparseTaintAnalysis.class);
+
+    private static final int DEFAULT_MAX_PATH_LENGTH = 64;
+
+    private static final int DEFAULT_MAX_PATHS = 3;
+
+    private final Solver solver;
+
+    private final CSManager csManager;
+
+    /**
+     * PFG edges collected during pointer analysis.
+     */
+    private final MultiMap<Pointer, Pointer> flowEdges = Maps.newMultiMap();
+
+    /**
+     * Call edges collected during pointer analysis.
+     */
+    private final List<Edge<CSCallSite, CSMethod>> callEdges = new ArrayList<>();
+
+    /**
+     * Whether to record the provenance of taint facts, see {@link TaintWitnesses}.
+     */
+    private final boolean provenance;
+
+    private final int maxPathLength;
+
+    private final int maxPaths;
+
+    public SparseTaintAnalysis(Solver solver) {
+        this.solver = solver;
+        this.csManager = solver.getCSManager();
+        AnalysisOptions options = solver.getOptions();
+        provenance = options.getBooleanOrDefault("taint-provenance", false);
+        maxPathLength = options.get("taint-max-path-length") != null ?
+                options.getInt("taint-max-path-length") : DEFAULT_MAX_PATH_LENGTH;
+        maxPaths = options.get("taint-max-paths") != null ?
+                options.getInt("taint-max-paths") : DEFAULT_MAX_PATHS;
+    }
+
+    @Override
+    public void onNewPFGEdge(Pointer source, Pointer target) {
+        flowEdges.put(source, target);
+    }
+
+    @Override
+    public void onNewCallEdge(Edge<CSCallSite, CSMethod> edge) {
+        callEdges.add(edge);
+    }
+
+    @Override
+    public void onFinish() {
+        run(solver.getOptions().getString("taint-config"));
+    }
+
+    /**
+     * Runs taint analysis with the configuration in given file,
+     * and stores the result in the result of pointer analysis.
+     * If provenance is enabled, the {@link TaintWitnesses} are also
+     * stored, under the name of that class.
+     */
+    public void run(String configPath) {
+        Propagator propagator = new Propagator(readConfig(configPath));
+        Set<TaintFlow> taintFlows = propagator.propagate();
+        PointerAnalysisResult result = solver.getResult();
+        // stores the result under the same key as TaintAnalysiss,
+        // so that the result is processed in the same way
+        result.storeResult(TaintAnalysiss.class.getName(), taintFlows);
+        if (propagator.witnesses != null) {
+            result.storeResult(TaintWitnesses.class.getName(), propagator.witnesses);
+        }
+    }
+
+    private TaintConfig readConfig(String configPath) {
+        TaintConfig config = TaintConfigCache.readConfig(configPath,
+                solver.getOptions().getString("taint-config-cache"));
+        logger.info(config);
+        return config;
+    }
+
+    /**
+     * Propagates taint objects for a taint configuration.
+     */
+    private class Propagator {
+
+        private final TaintConfig config;
+
+        private final TaintManager manager = new TaintManager();
+
+        private final Map<Pointer, Set<Obj>> taints = Maps.newMap();
+
+        private final MultiMap<Pointer, TransferEdge> transferEdges = Maps.newMultiMap();
+
+        private final List<SinkArg> sinkArgs = new ArrayList<>();
+
+        private final Queue<Entry> workList = new ArrayDeque<>();
+
+        /**
+         * Variables to which taints are not propagated.
+         */
+        private final Set<Var> sanitizedVars = Sets.newSet();
+
+        /**
+         * Witnesses of the taint flows, or null if provenance is disabled.
+         */
+        private final TaintWitnesses witnesses;
+
+        private Propagator(TaintConfig config) {
+            this.config = config;
+            witnesses = provenance ?
+                    new TaintWitnesses(maxPathLength, maxPaths, manager, taints) :
+                    null;
+        }
+
+        private Set<TaintFlow> propagate() {
+            callEdges.forEach(this::processCallEdge);
+            while (!workList.isEmpty()) {
+                Entry entry = workList.poll();
+                if (entry.pointer() instanceof CSVar csVar &&
+                        sanitizedVars.contains(csVar.getVar())) {
+                    continue;
+                }
+                Set<Obj> pts = taints.computeIfAbsent(
+                        entry.pointer(), p -> Sets.newHybridSet());
+                Set<Obj> delta = Sets.newHybridSet();
+                for (Obj taint : entry.taints()) {
+                    if (pts.add(taint)) {
+                        delta.add(taint);
+                    }
+                    if (witnesses != null) {
+                        // records the predecessor even if the fact exists,
+                        // so that the fact can have multiple witness paths
+                        witnesses.addPredecessor(
+                                entry.pointer(), taint, entry.from());
+                    }
+                }
+                if (!delta.isEmpty()) {
+                    for (Pointer succ : flowEdges.get(entry.pointer())) {
+                        workList.add(new Entry(succ, delta, entry.pointer()));
+                    }
+                    for (TransferEdge edge : transferEdges.get(entry.pointer())) {
+                        Set<Obj> transferred = Sets.newHybridSet();
+                        for (Obj taint : delta) {
+                            transferred.add(manager.makeTaint(
+                                    manager.getSourceCall(taint), edge.type()));
+                        }
+                        workList.add(new Entry(edge.to(), transferred, entry.pointer()));
+                    }
+                }
+            }
+            Set<TaintFlow> taintFlows = new TreeSet<>();
+            try (TaintFlowExporter exporter =
+                         TaintFlowExporter.make(solver.getOptions())) {
+                for (SinkArg sinkArg : sinkArgs) {
+                    for (Obj taint : taints.getOrDefault(sinkArg.arg(), Set.of())) {
+                        TaintFlow taintFlow = new TaintFlow(manager.getSourceCall(taint),
+                                sinkArg.sinkCall(), sinkArg.index());
+                        taintFlows.add(taintFlow);
+                        if (witnesses != null) {
+                            witnesses.addSinkFact(taintFlow, sinkArg.arg(), taint);
+                        }
+                    }
+                }
+                if (exporter != null) {
+                    // exports the flows after all sink facts are added,
+                    // so that the witnesses of each flow are complete
+                    for (TaintFlow taintFlow : taintFlows) {
+                        exporter.export(taintFlow, witnesses != null ?
+                                witnesses.getPaths(taintFlow) : List.of());
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            logger.info("{} taint objects, {} pointers with taints",
+                    taints.values().stream().mapToInt(Set::size).sum(),
+                    taints.size());
+            return taintFlows;
+        }
+
+        private void processCallEdge(Edge<CSCallSite, CSMethod> edge) {
+            CSCallSite csCallSite = edge.getCallSite();
+            Context context = csCallSite.getContext();
+            Invoke callSite = csCallSite.getCallSite();
+            JMethod callee = edge.getCallee().getMethod();
+            Set<Sanitizer> sanitizers = config.getSanitizersOf(callee);
+            for (Sanitizer sanitizer : sanitizers) {
+                sanitizedVars.addAll(TaintAnalysiss.getSanitizedVars(sanitizer));
+            }
+            Var result = callSite.getResult();
+            if (result != null) {
+                Pointer csResult = csManager.getCSVar(context, result);
+                for (Source source : config.getSourcesOf(callee)) {
+                    workList.add(new Entry(csResult,
+                            Set.of(manager.makeTaint(callSite, source.type())),
+                            null));
+                }
+            }
+            for (TaintTransfer transfer : config.getTransfersOf(callee)) {
+                if (TaintAnalysiss.isSanitized(transfer, sanitizers)) {
+                    continue;
+                }
+                Var from = TaintAnalysiss.getVar(callSite, transfer.from());
+                Var to = TaintAnalysiss.getVar(callSite, transfer.to());
+                if (from != null && to != null) {
+                    transferEdges.put(csManager.getCSVar(context, from),
+                            new TransferEdge(csManager.getCSVar(context, to),
+                                    transfer.type()));
+                }
+            }
+            InvokeExp invokeExp = callSite.getInvokeExp();
+            for (Sink sink : config.getSinksOf(callee)) {
+                int index = sink.index();
+                if (index >= 0 && index < invokeExp.getArgCount()) {
+                    sinkArgs.add(new SinkArg(
+                            csManager.getCSVar(context, invokeExp.getArg(index)),
+                            callSite, index));
+                }
+            }
+        }
+    }
+
+    /**
+     * Work-list entry which propagates taints to pointer.
+     *
+     * @param from the pointer from which the taints are propagated,
+     *             or null for the taints generated at source calls.
+     */
+    private record Entry(Pointer pointer, Set<Obj> taints, Pointer from) {
+    }
+
+    private record TransferEdge(Pointer to, Type type) {
+    }
+
+    private record SinkArg(Pointer arg, Invoke sinkCall, int index) {
+    }
+}
@@ -24,20 +24,43 @@ package pascal.taie.analysis.pta.plugin.taint;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import pascal.taie.World;
-import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.graph.callgraph.Edge;
 import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSManager;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
 import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.analysis.pta.cs.Solver;
+import pascal.taie.analysis.pta.plugin.Plugin;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.InvokeExp;
+import pascal.taie.ir.exp.InvokeInstanceExp;
+import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
 
-import java.util.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 
-public class TaintAnalysiss {
+/**
+ * Taint analysis which runs along with pointer analysis as a {@link Plugin}.
+ * Taint objects are generated at source calls, propagated through the
+ * taint transfers and checked at sink calls, whenever the solver
+ * discovers new call edges or new points-to relations. Taint objects
+ * are never propagated to the sanitized variables of sanitizer methods,
+ * nor along the taint transfers from or to the sanitized positions.
+ */
+public class TaintAnalysiss implements Plugin {
 
     private static final Logger logger = LogManager.getLogger(TaintAnalysiss.class);
 
@@ -51,68 +74,211 @@ public class TaintAnalysiss {
 
     private final Context emptyContext;
 
+    /**
+     * Map from variables to the transfer edges whose source are the variables.
+     */
+    private final MultiMap<CSVar, TransferEdge> transferEdges = Maps.newMultiMap();
+
+    /**
+     * Map from variables to the sink arguments they are passed to.
+     */
+    private final MultiMap<CSVar, SinkArg> sinkArgs = Maps.newMultiMap();
+
+    private final Set<TaintFlow> taintFlows = new TreeSet<>();
+
+    /**
+     * Exporter of the taint flows, or null if the flows are not exported.
+     */
+    private TaintFlowExporter exporter;
+
     public TaintAnalysiss(Solver solver) {
         manager = new TaintManager();
         this.solver = solver;
         csManager = solver.getCSManager();
         emptyContext = solver.getContextSelector().getEmptyContext();
-        config = TaintConfig.readConfig(
+        if (solver.getOptions().getBooleanOrDefault("taint-provenance", false)) {
+            throw new ConfigException(
+                    "Taint provenance requires taint-mode:sparse");
+        }
+        config = TaintConfigCache.readConfig(
                 solver.getOptions().getString("taint-config"),
-                World.get().getClassHierarchy(),
-                World.get().getTypeSystem());
+                solver.getOptions().getString("taint-config-cache"));
         logger.info(config);
     }
 
-    public void onFinish() {
-        Set<TaintFlow> taintFlows = collectTaintFlows();
-        solver.getResult().storeResult(getClass().getName(), taintFlows);
+    @Override
+    public void onStart() {
+        exporter = TaintFlowExporter.make(solver.getOptions());
     }
 
-    private Set<TaintFlow> collectTaintFlows() {
-        Set<TaintFlow> taintFlows = new TreeSet<>();
-        PointerAnalysisResult result = solver.getResult();
-        // LIB8
-        // You could query pointer analysis results you need via variable result.
-        var methods = result.getCSCallGraph().reachableMethods();
-        methods.forEach(m -> hanldeCSMethod(m, taintFlows));
-        return taintFlows;
+    @Override
+    public void onNewCSMethod(CSMethod csMethod) {
+        Context context = csMethod.getContext();
+        for (Sanitizer sanitizer : config.getSanitizersOf(csMethod.getMethod())) {
+            for (Var var : getSanitizedVars(sanitizer)) {
+                solver.addPointsToFilter(csManager.getCSVar(context, var),
+                        obj -> !manager.isTaint(obj.getObject()));
+            }
+        }
     }
-    private void hanldeCSMethod(CSMethod csMethod, Set<TaintFlow> taintFlows) {
-        var method = csMethod.getMethod();
-        for(int i = 0; i < method.getParamCount(); i ++) {
-            for(var sink :config.getSinks()) {
-                if(sink.method() == method && sink.index() == i) {
-                    handleSink(csMethod, i, taintFlows);
+
+    @Override
+    public void onNewCallEdge(Edge<CSCallSite, CSMethod> edge) {
+        CSCallSite csCallSite = edge.getCallSite();
+        Context context = csCallSite.getContext();
+        Invoke callSite = csCallSite.getCallSite();
+        JMethod callee = edge.getCallee().getMethod();
+        Var result = callSite.getResult();
+        if (result != null) {
+            CSVar csResult = csManager.getCSVar(context, result);
+            for (Source source : config.getSourcesOf(callee)) {
+                Obj taint = manager.makeTaint(callSite, source.type());
+                solver.addPointsTo(csResult,
+                        csManager.getCSObj(emptyContext, taint));
+            }
+        }
+        Set<Sanitizer> sanitizers = config.getSanitizersOf(callee);
+        for (TaintTransfer transfer : config.getTransfersOf(callee)) {
+            if (isSanitized(transfer, sanitizers)) {
+                continue;
+            }
+            Var from = getVar(callSite, transfer.from());
+            Var to = getVar(callSite, transfer.to());
+            if (from != null && to != null) {
+                CSVar csFrom = csManager.getCSVar(context, from);
+                TransferEdge transferEdge = new TransferEdge(
+                        csManager.getCSVar(context, to), transfer.type());
+                if (transferEdges.put(csFrom, transferEdge)) {
+                    transferTaints(transferEdge, csFrom.getPointsToSet());
+                }
+            }
+        }
+        InvokeExp invokeExp = callSite.getInvokeExp();
+        for (Sink sink : config.getSinksOf(callee)) {
+            int index = sink.index();
+            if (index >= 0 && index < invokeExp.getArgCount()) {
+                CSVar arg = csManager.getCSVar(context, invokeExp.getArg(index));
+                SinkArg sinkArg = new SinkArg(callSite, index);
+                if (sinkArgs.put(arg, sinkArg)) {
+                    checkSink(sinkArg, arg.getPointsToSet());
                 }
             }
+        }
+    }
 
+    @Override
+    public void onNewPointsToSet(CSVar csVar, PointsToSet pts) {
+        for (TransferEdge transferEdge : transferEdges.get(csVar)) {
+            transferTaints(transferEdge, pts);
+        }
+        for (SinkArg sinkArg : sinkArgs.get(csVar)) {
+            checkSink(sinkArg, pts);
         }
     }
-    private void handleSink(CSMethod csMethod, int i, Set<TaintFlow> taintFlows) {
-        var method = csMethod.getMethod();
-        // get pt(c:ai)
-        PointerAnalysisResult result = solver.getResult();
-        for(var caller: result.getCSCallGraph().getCallersOf(csMethod)) {
-            var l = caller.getCallSite();
-            var arg = l.getInvokeExp().getArg(i);
-            var pts = result.getPointsToSet(arg);
-            for(var obj : pts) {
-                if (manager.isTaint(obj)) {
-                    var j = manager.getSourceCall(obj);
-                    var f = new TaintFlow(j, l, i);
-                    taintFlows.add(f);
-                }
+
+    @Override
+    public void onFinish() {
+        solver.getResult().storeResult(getClass().getName(), taintFlows);
+        if (exporter != null) {
+            try {
+                exporter.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
         }
     }
-    public boolean isSource(JMethod method, Type type) {
-        for(var source: config.getSources()) {
-            if(source.method() == method && source.type() == type)
+
+    /**
+     * @return the variable at given position (see {@link TaintTransfer})
+     * of a call site, or null if the call site has no such variable.
+     */
+    static Var getVar(Invoke callSite, int index) {
+        InvokeExp invokeExp = callSite.getInvokeExp();
+        return switch (index) {
+            case TaintTransfer.BASE -> invokeExp instanceof InvokeInstanceExp e ?
+                    e.getBase() : null;
+            case TaintTransfer.RESULT -> callSite.getResult();
+            default -> index >= 0 && index < invokeExp.getArgCount() ?
+                    invokeExp.getArg(index) : null;
+        };
+    }
+
+    /**
+     * @return the variables of the sanitizer method that are sanitized.
+     */
+    static List<Var> getSanitizedVars(Sanitizer sanitizer) {
+        IR ir = sanitizer.method().getIR();
+        int index = sanitizer.index();
+        return switch (index) {
+            case TaintTransfer.BASE -> ir.getThis() != null ?
+                    List.of(ir.getThis()) : List.of();
+            case TaintTransfer.RESULT -> ir.getReturnVars();
+            default -> index >= 0 && index < ir.getParams().size() ?
+                    List.of(ir.getParam(index)) : List.of();
+        };
+    }
+
+    /**
+     * @return true if given transfer passes taint objects from or to
+     * a position of the method that is sanitized by given sanitizers.
+     * The transfer edges connect the variables of the call sites, thus
+     * such transfers would bypass the sanitized variables of the method.
+     */
+    static boolean isSanitized(TaintTransfer transfer, Set<Sanitizer> sanitizers) {
+        for (Sanitizer sanitizer : sanitizers) {
+            if (sanitizer.index() == transfer.from() ||
+                    sanitizer.index() == transfer.to()) {
                 return true;
+            }
         }
         return false;
     }
-    public Obj makeTaint(Invoke source, Type type) {
-       return manager.makeTaint(source, type);
+
+    /**
+     * Propagates the taint objects in pts along given transfer edge.
+     */
+    private void transferTaints(TransferEdge transferEdge, PointsToSet pts) {
+        for (CSObj csObj : pts) {
+            Obj obj = csObj.getObject();
+            if (manager.isTaint(obj)) {
+                Obj taint = manager.makeTaint(
+                        manager.getSourceCall(obj), transferEdge.type());
+                solver.addPointsTo(transferEdge.to(),
+                        csManager.getCSObj(emptyContext, taint));
+            }
+        }
+    }
+
+    /**
+     * Reports a taint flow for each taint object in pts
+     * which reaches given sink argument.
+     */
+    private void checkSink(SinkArg sinkArg, PointsToSet pts) {
+        for (CSObj csObj : pts) {
+            Obj obj = csObj.getObject();
+            if (manager.isTaint(obj)) {
+                TaintFlow taintFlow = new TaintFlow(manager.getSourceCall(obj),
+                        sinkArg.sinkCall(), sinkArg.index());
+                if (taintFlows.add(taintFlow)) {
+                    logger.debug("Detected {}", taintFlow);
+                    if (exporter != null) {
+                        exporter.export(taintFlow);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Taint objects pointed to by the source variable of the edge
+     * flow to the target variable as taint objects of the given type.
+     */
+    private record TransferEdge(CSVar to, Type type) {
+    }
+
+    /**
+     * The index-th argument of a sink call.
+     */
+    private record SinkArg(Invoke sinkCall, int index) {
     }
 }
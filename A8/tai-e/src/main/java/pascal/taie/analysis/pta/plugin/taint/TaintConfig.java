@@ -38,6 +38,8 @@ import pascal.taie.language.classes.ClassHierarchy;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.type.Type;
 import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
 import pascal.taie.util.collection.Sets;
 
 import java.io.File;
@@ -67,11 +69,43 @@ class TaintConfig {
      */
     private final Set<TaintTransfer> transfers;
 
-    private TaintConfig(Set<Source> sources, Set<Sink> sinks,
-                        Set<TaintTransfer> transfers) {
+    /**
+     * Set of sanitizers.
+     */
+    private final Set<Sanitizer> sanitizers;
+
+    /**
+     * Map from a method to the sources of the method.
+     */
+    private final MultiMap<JMethod, Source> method2Sources = Maps.newMultiMap();
+
+    /**
+     * Map from a method to the sinks of the method.
+     */
+    private final MultiMap<JMethod, Sink> method2Sinks = Maps.newMultiMap();
+
+    /**
+     * Map from a method to the taint transfers of the method.
+     */
+    private final MultiMap<JMethod, TaintTransfer> method2Transfers = Maps.newMultiMap();
+
+    /**
+     * Map from a method to the sanitizers of the method.
+     */
+    private final MultiMap<JMethod, Sanitizer> method2Sanitizers = Maps.newMultiMap();
+
+    TaintConfig(Set<Source> sources, Set<Sink> sinks,
+                Set<TaintTransfer> transfers, Set<Sanitizer> sanitizers) {
         this.sources = sources;
         this.sinks = sinks;
         this.transfers = transfers;
+        this.sanitizers = sanitizers;
+        sources.forEach(source -> method2Sources.put(source.method(), source));
+        sinks.forEach(sink -> method2Sinks.put(sink.method(), sink));
+        transfers.forEach(transfer ->
+                method2Transfers.put(transfer.method(), transfer));
+        sanitizers.forEach(sanitizer ->
+                method2Sanitizers.put(sanitizer.method(), sanitizer));
     }
 
     /**
@@ -119,6 +153,41 @@ class TaintConfig {
         return transfers;
     }
 
+    /**
+     * @return sanitizers in the configuration.
+     */
+    Set<Sanitizer> getSanitizers() {
+        return sanitizers;
+    }
+
+    /**
+     * @return sources whose method is given method.
+     */
+    Set<Source> getSourcesOf(JMethod method) {
+        return method2Sources.get(method);
+    }
+
+    /**
+     * @return sinks whose method is given method.
+     */
+    Set<Sink> getSinksOf(JMethod method) {
+        return method2Sinks.get(method);
+    }
+
+    /**
+     * @return taint transfers whose method is given method.
+     */
+    Set<TaintTransfer> getTransfersOf(JMethod method) {
+        return method2Transfers.get(method);
+    }
+
+    /**
+     * @return sanitizers whose method is given method.
+     */
+    Set<Sanitizer> getSanitizersOf(JMethod method) {
+        return method2Sanitizers.get(method);
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder("TaintConfig:");
@@ -137,6 +206,11 @@ class TaintConfig {
             transfers.forEach(transfer ->
                     sb.append("  ").append(transfer).append("\n"));
         }
+        if (!sanitizers.isEmpty()) {
+            sb.append("\nsanitizers:\n");
+            sanitizers.forEach(sanitizer ->
+                    sb.append("  ").append(sanitizer).append("\n"));
+        }
         return sb.toString();
     }
 
@@ -162,7 +236,8 @@ class TaintConfig {
             Set<Source> sources = deserializeSources(node.get("sources"));
             Set<Sink> sinks = deserializeSinks(node.get("sinks"));
             Set<TaintTransfer> transfers = deserializeTransfers(node.get("transfers"));
-            return new TaintConfig(sources, sinks, transfers);
+            Set<Sanitizer> sanitizers = deserializeSanitizers(node.get("sanitizers"));
+            return new TaintConfig(sources, sinks, transfers, sanitizers);
         }
 
         /**
@@ -255,5 +330,34 @@ class TaintConfig {
                 return Set.of();
             }
         }
+
+        /**
+         * Deserializes a {@link JsonNode} (assume it is an {@link ArrayNode})
+         * to a set of {@link Sanitizer}.
+         *
+         * @param node the node to be deserialized
+         * @return set of deserialized {@link Sanitizer}
+         */
+        private Set<Sanitizer> deserializeSanitizers(JsonNode node) {
+            if (node instanceof ArrayNode arrayNode) {
+                Set<Sanitizer> sanitizers = Sets.newSet(arrayNode.size());
+                for (JsonNode elem : arrayNode) {
+                    String methodSig = elem.get("method").asText();
+                    JMethod method = hierarchy.getMethod(methodSig);
+                    if (method != null) {
+                        // if the method (given in config file) is absent in
+                        // the class hierarchy, just ignore it.
+                        int index = TaintTransfer.toInt(elem.get("index").asText());
+                        sanitizers.add(new Sanitizer(method, index));
+                    } else {
+                        logger.warn("Cannot find sanitizer method '{}'", methodSig);
+                    }
+                }
+                return Collections.unmodifiableSet(sanitizers);
+            } else {
+                // if node is not an instance of ArrayNode, just return an empty set.
+                return Set.of();
+            }
+        }
     }
 }
@@ -0,0 +1,326 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.config.ConfigException;
+import pascal.taie.config.Options;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.collection.Sets;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Cache of compiled taint configurations.
+ * <p>
+ * A compiled configuration is a binary file which stores the rules of
+ * a configuration file by method signatures and type names, so that
+ * loading it does not require parsing YAML. The compiled file is named
+ * by the hash of the content of the configuration file, the sizes and
+ * modification times of the files on the class path, and the Java
+ * version, thus it is recompiled when any of them changes.
+ * <p>
+ * As the class path is part of the name, the rules are resolved against
+ * the class hierarchy when the file is compiled. The file keeps only
+ * the rules whose methods are present, and records the signatures of
+ * the absent ones separately, so that loading it neither looks up nor
+ * warns about the absent methods again.
+ */
+class TaintConfigCache {
+
+    private static final Logger logger = LogManager.getLogger(TaintConfigCache.class);
+
+    private static final int MAGIC = 0x54434647; // "TCFG"
+
+    private static final int VERSION = 4;
+
+    private TaintConfigCache() {
+    }
+
+    /**
+     * Reads a taint analysis configuration from file, via the compiled
+     * configuration in given cache directory if it is available.
+     *
+     * @param path     the path to the config file
+     * @param cacheDir the directory of the compiled configurations,
+     *                 or null if the cache is not used.
+     * @throws ConfigException if failed to load the config file
+     */
+    static TaintConfig readConfig(String path, String cacheDir) {
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        TypeSystem typeSystem = World.get().getTypeSystem();
+        if (cacheDir == null) {
+            return TaintConfig.readConfig(path, hierarchy, typeSystem);
+        }
+        File compiled = new File(cacheDir, computeKey(path) + ".tcfg");
+        if (compiled.exists()) {
+            try {
+                TaintConfig config = load(compiled, hierarchy, typeSystem);
+                logger.info("Loaded compiled taint config {}", compiled);
+                return config;
+            } catch (IOException e) {
+                logger.warn("Failed to load compiled taint config {}, recompiling",
+                        compiled, e);
+            }
+        }
+        try {
+            compile(path, compiled, hierarchy);
+            return load(compiled, hierarchy, typeSystem);
+        } catch (IOException e) {
+            logger.warn("Failed to compile taint config {} to {}",
+                    path, compiled, e);
+            return TaintConfig.readConfig(path, hierarchy, typeSystem);
+        }
+    }
+
+    /**
+     * @return the hex string of the hash of the content of given config
+     * file, the files on the class path and the Java version.
+     */
+    private static String computeKey(String path) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(Files.readAllBytes(new File(path).toPath()));
+            Options options = World.get().getOptions();
+            update(digest, System.getProperty("java.version"));
+            update(digest, options.getJavaVersion() + ":" + options.isPrependJVM());
+            String classPath = options.getClassPath();
+            if (classPath != null) {
+                for (String entry : classPath.split(File.pathSeparator)) {
+                    updateClassPathEntry(digest, Path.of(entry));
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException e) {
+            throw new ConfigException("Failed to read taint analysis config file " + path, e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new ConfigException("Failed to compute hash of config file " + path, e);
+        }
+    }
+
+    /**
+     * Updates the digest with the paths, sizes and modification times
+     * of the files in given class path entry, which is a directory or
+     * a file (e.g., a JAR file).
+     */
+    private static void updateClassPathEntry(MessageDigest digest, Path entry)
+            throws IOException {
+        update(digest, entry.toString());
+        if (Files.isDirectory(entry)) {
+            List<Path> files;
+            try (Stream<Path> paths = Files.walk(entry)) {
+                files = paths.filter(Files::isRegularFile).sorted().toList();
+            }
+            for (Path file : files) {
+                update(digest, entry.relativize(file).toString());
+                updateFileStamp(digest, file);
+            }
+        } else if (Files.exists(entry)) {
+            updateFileStamp(digest, entry);
+        }
+    }
+
+    private static void updateFileStamp(MessageDigest digest, Path file)
+            throws IOException {
+        update(digest, Files.size(file) + ":" +
+                Files.getLastModifiedTime(file).toMillis());
+    }
+
+    private static void update(MessageDigest digest, String s) {
+        digest.update(s.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    /**
+     * Compiles the rules of given config file to given file. Only the rules
+     * whose methods are present in given class hierarchy are written, and
+     * the signatures of the absent methods are recorded after the rules.
+     */
+    private static void compile(String path, File file, ClassHierarchy hierarchy)
+            throws IOException {
+        JsonNode node = new ObjectMapper(new YAMLFactory()).readTree(new File(path));
+        File dir = file.getParentFile();
+        if (dir != null && !dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Failed to create directory " + dir);
+        }
+        List<String> absent = new ArrayList<>();
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            List<JsonNode> sources = getRules(node, "sources", "source",
+                    hierarchy, absent);
+            out.writeInt(sources.size());
+            for (JsonNode source : sources) {
+                out.writeUTF(source.get("method").asText());
+                out.writeUTF(source.get("type").asText());
+            }
+            List<JsonNode> sinks = getRules(node, "sinks", "sink",
+                    hierarchy, absent);
+            out.writeInt(sinks.size());
+            for (JsonNode sink : sinks) {
+                out.writeUTF(sink.get("method").asText());
+                out.writeInt(sink.get("index").asInt());
+            }
+            List<JsonNode> transfers = getRules(node, "transfers", "taint-transfer",
+                    hierarchy, absent);
+            out.writeInt(transfers.size());
+            for (JsonNode transfer : transfers) {
+                out.writeUTF(transfer.get("method").asText());
+                out.writeInt(TaintTransfer.toInt(transfer.get("from").asText()));
+                out.writeInt(TaintTransfer.toInt(transfer.get("to").asText()));
+                out.writeUTF(transfer.get("type").asText());
+            }
+            List<JsonNode> sanitizers = getRules(node, "sanitizers", "sanitizer",
+                    hierarchy, absent);
+            out.writeInt(sanitizers.size());
+            for (JsonNode sanitizer : sanitizers) {
+                out.writeUTF(sanitizer.get("method").asText());
+                out.writeInt(TaintTransfer.toInt(sanitizer.get("index").asText()));
+            }
+            out.writeInt(absent.size());
+            for (String signature : absent) {
+                out.writeUTF(signature);
+            }
+        }
+    }
+
+    /**
+     * @return the rules in given section of the config whose methods are
+     * present in given class hierarchy, or an empty list if the section
+     * is absent. The signatures of the absent methods are added to
+     * {@code absent}, and each of them is warned once here.
+     */
+    private static List<JsonNode> getRules(
+            JsonNode node, String section, String kind,
+            ClassHierarchy hierarchy, List<String> absent) {
+        JsonNode rules = node != null ? node.get(section) : null;
+        if (rules == null || !rules.isArray()) {
+            return List.of();
+        }
+        List<JsonNode> list = new ArrayList<>(rules.size());
+        for (JsonNode rule : rules) {
+            String signature = rule.get("method").asText();
+            if (hierarchy.getMethod(signature) != null) {
+                list.add(rule);
+            } else {
+                logger.warn("Cannot find {} method '{}'", kind, signature);
+                absent.add(signature);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Loads a compiled config. The absent methods recorded in the file
+     * are skipped without being looked up.
+     *
+     * @throws IOException if the file is malformed or a method of its
+     *                     rules is absent in given class hierarchy.
+     */
+    private static TaintConfig load(File file, ClassHierarchy hierarchy,
+                                    TypeSystem typeSystem) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unsupported compiled taint config " + file);
+            }
+            int n = in.readInt();
+            Set<Source> sources = Sets.newSet(n);
+            for (int i = 0; i < n; ++i) {
+                JMethod method = getMethod(hierarchy, in.readUTF());
+                sources.add(new Source(method, typeSystem.getType(in.readUTF())));
+            }
+            n = in.readInt();
+            Set<Sink> sinks = Sets.newSet(n);
+            for (int i = 0; i < n; ++i) {
+                JMethod method = getMethod(hierarchy, in.readUTF());
+                sinks.add(new Sink(method, in.readInt()));
+            }
+            n = in.readInt();
+            Set<TaintTransfer> transfers = Sets.newSet(n);
+            for (int i = 0; i < n; ++i) {
+                JMethod method = getMethod(hierarchy, in.readUTF());
+                int from = in.readInt();
+                int to = in.readInt();
+                transfers.add(new TaintTransfer(method, from, to,
+                        typeSystem.getType(in.readUTF())));
+            }
+            n = in.readInt();
+            Set<Sanitizer> sanitizers = Sets.newSet(n);
+            for (int i = 0; i < n; ++i) {
+                JMethod method = getMethod(hierarchy, in.readUTF());
+                sanitizers.add(new Sanitizer(method, in.readInt()));
+            }
+            n = in.readInt();
+            for (int i = 0; i < n; ++i) {
+                in.readUTF();
+            }
+            logger.debug("Skipped {} absent methods of compiled taint config {}",
+                    n, file);
+            return new TaintConfig(Collections.unmodifiableSet(sources),
+                    Collections.unmodifiableSet(sinks),
+                    Collections.unmodifiableSet(transfers),
+                    Collections.unmodifiableSet(sanitizers));
+        }
+    }
+
+    /**
+     * @return the method of given signature.
+     * @throws IOException if the method is absent in the class hierarchy,
+     *                     which means the compiled file is stale.
+     */
+    private static JMethod getMethod(ClassHierarchy hierarchy, String signature)
+            throws IOException {
+        JMethod method = hierarchy.getMethod(signature);
+        if (method == null) {
+            throw new IOException("Cannot find method '" + signature + "'");
+        }
+        return method;
+    }
+}
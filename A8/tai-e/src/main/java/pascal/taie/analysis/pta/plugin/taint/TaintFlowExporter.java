@@ -0,0 +1,314 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Writes taint flows to a file in UTF-8, in JSON Lines or SARIF format.
+ * Each flow is written when it is given to the exporter and not kept by
+ * the exporter, so the memory used by the exporter does not grow with
+ * the number of flows. {@link TaintAnalysiss} exports each flow once
+ * it is detected, while {@link SparseTaintAnalysis} exports the flows
+ * after the propagation finishes, as their witness paths are complete
+ * only then.
+ */
+abstract class TaintFlowExporter implements Closeable {
+
+    final JsonGenerator generator;
+
+    private TaintFlowExporter(String path) {
+        try {
+            generator = new JsonFactory().createGenerator(
+                    Files.newBufferedWriter(Path.of(path), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open output file " + path, e);
+        }
+    }
+
+    /**
+     * Creates the exporter specified by option {@code taint-export}, which
+     * gives the output file. The format is given by option
+     * {@code taint-export-format}: {@code jsonl} or {@code sarif}.
+     * If the format is absent, it is {@code sarif} for files of
+     * extension ".sarif", otherwise {@code jsonl}.
+     *
+     * @return the exporter, or null if option {@code taint-export} is absent.
+     */
+    static TaintFlowExporter make(AnalysisOptions options) {
+        String path = options.getString("taint-export");
+        if (path == null) {
+            return null;
+        }
+        String format = options.getString("taint-export-format");
+        if (format == null) {
+            format = path.endsWith(".sarif") ? "sarif" : "jsonl";
+        }
+        return switch (format) {
+            case "jsonl" -> new JsonLines(path);
+            case "sarif" -> new Sarif(path);
+            default -> throw new ConfigException(
+                    "Unknown taint export format: " + format);
+        };
+    }
+
+    /**
+     * Writes a taint flow to the output file.
+     */
+    void export(TaintFlow taintFlow) {
+        export(taintFlow, List.of());
+    }
+
+    /**
+     * Writes a taint flow with its witness paths to the output file.
+     *
+     * @param paths the witness paths, see {@link TaintWitnesses#getPaths}.
+     */
+    void export(TaintFlow taintFlow, List<List<Pointer>> paths) {
+        try {
+            write(taintFlow, paths);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to export " + taintFlow, e);
+        }
+    }
+
+    abstract void write(TaintFlow taintFlow, List<List<Pointer>> paths)
+            throws IOException;
+
+    /**
+     * Writes the fields that describe a call site.
+     */
+    void writeCallSite(Invoke callSite) throws IOException {
+        generator.writeStringField("method", getCallee(callSite));
+        generator.writeStringField("container", callSite.getContainer().toString());
+        generator.writeNumberField("line", callSite.getLineNumber());
+    }
+
+    static String getCallee(Invoke callSite) {
+        return callSite.getMethodRef().toString();
+    }
+
+    /**
+     * Exporter which writes each taint flow as a JSON object in a line.
+     * The witness paths, if any, are written as arrays of pointers
+     * in field "paths".
+     */
+    private static class JsonLines extends TaintFlowExporter {
+
+        private JsonLines(String path) {
+            super(path);
+            // the lines are separated by write()
+            generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        void write(TaintFlow taintFlow, List<List<Pointer>> paths)
+                throws IOException {
+            generator.writeStartObject();
+            generator.writeObjectFieldStart("source");
+            writeCallSite(taintFlow.sourceCall());
+            generator.writeEndObject();
+            generator.writeObjectFieldStart("sink");
+            writeCallSite(taintFlow.sinkCall());
+            generator.writeNumberField("index", taintFlow.index());
+            generator.writeEndObject();
+            if (!paths.isEmpty()) {
+                generator.writeArrayFieldStart("paths");
+                for (List<Pointer> path : paths) {
+                    generator.writeStartArray();
+                    for (Pointer pointer : path) {
+                        generator.writeString(pointer.toString());
+                    }
+                    generator.writeEndArray();
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+
+    /**
+     * Exporter which writes a SARIF log of one run, where each taint flow
+     * is a result located at the sink call and related to the source call.
+     * Each witness path is a code flow of the result.
+     * The results array is opened at creation and closed by {@link #close()}.
+     */
+    private static class Sarif extends TaintFlowExporter {
+
+        private static final String RULE_ID = "taint-flow";
+
+        private Sarif(String path) {
+            super(path);
+            try {
+                generator.writeStartObject();
+                generator.writeStringField("version", "2.1.0");
+                generator.writeStringField("$schema",
+                        "https://json.schemastore.org/sarif-2.1.0.json");
+                generator.writeArrayFieldStart("runs");
+                generator.writeStartObject();
+                generator.writeObjectFieldStart("tool");
+                generator.writeObjectFieldStart("driver");
+                generator.writeStringField("name", "Tai-e");
+                generator.writeArrayFieldStart("rules");
+                generator.writeStartObject();
+                generator.writeStringField("id", RULE_ID);
+                generator.writeObjectFieldStart("shortDescription");
+                generator.writeStringField("text",
+                        "Tainted data flows from a source to a sink");
+                generator.writeEndObject();
+                generator.writeEndObject();
+                generator.writeEndArray();
+                generator.writeEndObject();
+                generator.writeEndObject();
+                generator.writeArrayFieldStart("results");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        void write(TaintFlow taintFlow, List<List<Pointer>> paths)
+                throws IOException {
+            Invoke source = taintFlow.sourceCall();
+            Invoke sink = taintFlow.sinkCall();
+            generator.writeStartObject();
+            generator.writeStringField("ruleId", RULE_ID);
+            generator.writeStringField("level", "warning");
+            generator.writeObjectFieldStart("message");
+            generator.writeStringField("text", String.format(
+                    "Argument %d of %s is tainted by %s",
+                    taintFlow.index(), getCallee(sink), getCallee(source)));
+            generator.writeEndObject();
+            generator.writeArrayFieldStart("locations");
+            writeLocation(sink);
+            generator.writeEndArray();
+            generator.writeArrayFieldStart("relatedLocations");
+            writeLocation(source);
+            generator.writeEndArray();
+            if (!paths.isEmpty()) {
+                generator.writeArrayFieldStart("codeFlows");
+                for (List<Pointer> path : paths) {
+                    writeCodeFlow(path);
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+        }
+
+        /**
+         * Writes a witness path as a code flow of one thread flow,
+         * whose locations are the pointers on the path.
+         */
+        private void writeCodeFlow(List<Pointer> path) throws IOException {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("threadFlows");
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("locations");
+            for (Pointer pointer : path) {
+                generator.writeStartObject();
+                generator.writeObjectFieldStart("location");
+                generator.writeObjectFieldStart("message");
+                generator.writeStringField("text", pointer.toString());
+                generator.writeEndObject();
+                if (pointer instanceof CSVar csVar) {
+                    generator.writeArrayFieldStart("logicalLocations");
+                    generator.writeStartObject();
+                    generator.writeStringField("fullyQualifiedName",
+                            csVar.getVar().getMethod().toString());
+                    generator.writeEndObject();
+                    generator.writeEndArray();
+                }
+                generator.writeEndObject();
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+
+        private void writeLocation(Invoke callSite) throws IOException {
+            JMethod container = callSite.getContainer();
+            generator.writeStartObject();
+            generator.writeObjectFieldStart("physicalLocation");
+            generator.writeObjectFieldStart("artifactLocation");
+            generator.writeStringField("uri", getSourceFile(container));
+            generator.writeEndObject();
+            if (callSite.getLineNumber() > 0) {
+                generator.writeObjectFieldStart("region");
+                generator.writeNumberField("startLine", callSite.getLineNumber());
+                generator.writeEndObject();
+            }
+            generator.writeEndObject();
+            generator.writeArrayFieldStart("logicalLocations");
+            generator.writeStartObject();
+            generator.writeStringField("fullyQualifiedName", container.toString());
+            generator.writeEndObject();
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+
+        /**
+         * @return the relative path of the source file which declares
+         * given method, inferred from the name of its (outermost) class.
+         */
+        private static String getSourceFile(JMethod method) {
+            String className = method.getDeclaringClass().getName();
+            int i = className.indexOf('$');
+            if (i >= 0) {
+                className = className.substring(0, i);
+            }
+            return className.replace('.', '/') + ".java";
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.writeEndArray(); // results
+            generator.writeEndObject(); // run
+            generator.writeEndArray(); // runs
+            generator.writeEndObject();
+            generator.close();
+        }
+    }
+}
@@ -78,7 +78,7 @@ record TaintTransfer(JMethod method, int from, int to, Type type) {
     /**
      * Converts index to string.
      */
-    private static String toString(int index) {
+    static String toString(int index) {
         return switch (index) {
             case BASE -> BASE_STR;
             case RESULT -> RESULT_STR;
@@ -0,0 +1,198 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.collection.TwoKeyMap;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Witness paths of taint flows.
+ * <p>
+ * For each taint fact, i.e., a taint object in the taint set of a pointer,
+ * the pointers from which the fact is propagated are recorded as its
+ * predecessors, and at most {@code maxPaths} predecessors are kept for
+ * a fact. The paths from the source calls to the sink arguments are
+ * reconstructed on demand by following these predecessors backward.
+ */
+public class TaintWitnesses {
+
+    private final int maxLength;
+
+    private final int maxPaths;
+
+    private final TaintManager manager;
+
+    private final Map<Pointer, Set<Obj>> taints;
+
+    /**
+     * Map from taint facts to their predecessor pointers. A null
+     * predecessor means that the fact is generated at a source call.
+     */
+    private final TwoKeyMap<Pointer, Obj, List<Pointer>> preds = Maps.newTwoKeyMap();
+
+    /**
+     * Map from taint flows to the taint facts at their sink arguments.
+     */
+    private final MultiMap<TaintFlow, Fact> sinkFacts = Maps.newMultiMap();
+
+    /**
+     * @param maxLength maximum number of pointers on a path,
+     *                  longer paths are not reported.
+     * @param maxPaths  maximum number of paths reported for a taint flow.
+     * @param taints    taint sets of the pointers.
+     */
+    TaintWitnesses(int maxLength, int maxPaths,
+                   TaintManager manager, Map<Pointer, Set<Obj>> taints) {
+        this.maxLength = maxLength;
+        this.maxPaths = maxPaths;
+        this.manager = manager;
+        this.taints = taints;
+    }
+
+    /**
+     * Records that a taint fact is propagated from pred,
+     * or generated at a source call if pred is null.
+     */
+    void addPredecessor(Pointer pointer, Obj taint, Pointer pred) {
+        List<Pointer> ps = preds.computeIfAbsent(
+                pointer, taint, (p, t) -> new ArrayList<>(1));
+        if (ps.size() < maxPaths && !ps.contains(pred)) {
+            ps.add(pred);
+        }
+    }
+
+    void addSinkFact(TaintFlow taintFlow, Pointer arg, Obj taint) {
+        sinkFacts.put(taintFlow, new Fact(arg, taint));
+    }
+
+    /**
+     * @return at most {@code maxPaths} distinct witness paths of given
+     * taint flow. Each path is a list of pointers, from the result of
+     * the source call to the argument of the sink call.
+     */
+    public List<List<Pointer>> getPaths(TaintFlow taintFlow) {
+        Set<List<Pointer>> paths = new LinkedHashSet<>();
+        Set<Fact> deadEnds = Sets.newSet();
+        for (Fact sinkFact : sinkFacts.get(taintFlow)) {
+            if (paths.size() >= maxPaths) {
+                break;
+            }
+            collectPaths(sinkFact.pointer(), sinkFact.taint(),
+                    taintFlow.sourceCall(), new ArrayDeque<>(),
+                    Collections.newSetFromMap(new IdentityHashMap<>()),
+                    deadEnds, paths);
+        }
+        return new ArrayList<>(paths);
+    }
+
+    /**
+     * Follows the predecessors backward from given fact to its source,
+     * and collects the paths until {@code maxPaths} paths are found.
+     * The facts from which no source can be reached are recorded in
+     * deadEnds and are not searched again, so each fact is fully
+     * searched at most once.
+     *
+     * @param path     the pointers from the successor of given pointer
+     *                 to the sink argument.
+     * @param onPath   the pointers in path.
+     * @param deadEnds the facts from which no source is reachable.
+     * @return false if given fact is a dead end, otherwise true. A fact
+     * whose search is cut by the length bound or by a pointer on the path
+     * is not a dead end, as it may reach a source on another path.
+     */
+    private boolean collectPaths(Pointer pointer, Obj taint, Invoke sourceCall,
+                                 Deque<Pointer> path, Set<Pointer> onPath,
+                                 Set<Fact> deadEnds, Set<List<Pointer>> paths) {
+        Fact fact = new Fact(pointer, taint);
+        if (deadEnds.contains(fact)) {
+            return false;
+        }
+        if (path.size() >= maxLength || onPath.contains(pointer)) {
+            return true;
+        }
+        path.push(pointer);
+        onPath.add(pointer);
+        boolean live = false;
+        for (Pointer pred : preds.getOrDefault(pointer, taint, List.of())) {
+            if (paths.size() >= maxPaths) {
+                live = true;
+                break;
+            }
+            if (pred == null) {
+                paths.add(new ArrayList<>(path));
+                live = true;
+            } else {
+                Obj predTaint = findPredTaint(pred, taint, sourceCall);
+                if (predTaint != null && collectPaths(pred, predTaint,
+                        sourceCall, path, onPath, deadEnds, paths)) {
+                    live = true;
+                }
+            }
+        }
+        path.pop();
+        onPath.remove(pointer);
+        if (!live) {
+            deadEnds.add(fact);
+        }
+        return live;
+    }
+
+    /**
+     * @return the taint object in the taint set of pred from which
+     * given taint object is propagated. It is the same object for PFG
+     * edges, or an object of the same source call for transfer edges.
+     */
+    private Obj findPredTaint(Pointer pred, Obj taint, Invoke sourceCall) {
+        Set<Obj> predTaints = taints.getOrDefault(pred, Set.of());
+        if (predTaints.contains(taint)) {
+            return taint;
+        }
+        for (Obj predTaint : predTaints) {
+            if (manager.getSourceCall(predTaint).equals(sourceCall)) {
+                return predTaint;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Taint fact, i.e., given taint object is in the taint set of given pointer.
+     */
+    private record Fact(Pointer pointer, Obj taint) {
+    }
+}
@@ -49,6 +49,15 @@ public interface PointsToSet extends Iterable<CSObj> {
      */
     boolean addAll(PointsToSet pts);
 
+    /**
+     * Adds all objects in given pts to this set.
+     *
+     * @return a new points-to set which consists of the objects that are
+     * in given pts but were not in this set before the call, i.e.,
+     * the objects newly added to this set.
+     */
+    PointsToSet addAllDiff(PointsToSet pts);
+
     /**
      * @return true if this set contains given object, otherwise false.
      */
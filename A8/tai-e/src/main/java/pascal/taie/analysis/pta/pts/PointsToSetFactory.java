@@ -23,26 +23,53 @@
 package pascal.taie.analysis.pta.pts;
 
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
+import pascal.taie.util.Indexer;
 import pascal.taie.util.collection.Sets;
 
-import java.util.Set;
 import java.util.function.Supplier;
 
 /**
- * Provides static factory methods for {@link PointsToSet}.
+ * Creates {@link PointsToSet}s of the representation selected by
+ * analysis option {@code pts}:
+ * <ul>
+ *     <li>{@code hybrid} (default): hybrid hash sets of {@link CSObj}</li>
+ *     <li>{@code bit}: sparse bit sets over the indexes of {@link CSObj}</li>
+ * </ul>
+ * Each pointer analysis owns its factory (see
+ * {@link pascal.taie.analysis.pta.core.cs.element.CSManager#getPointsToSetFactory()}),
+ * so that the analyses in the same JVM do not affect each other.
  */
 public class PointsToSetFactory {
 
-    private static final Supplier<Set<CSObj>> setFactory = Sets::newHybridSet;
+    private final Supplier<PointsToSet> factory;
 
-    public static PointsToSet make() {
-        return new DelegatePointsToSet(setFactory.get());
+    /**
+     * @param options    options of the pointer analysis
+     * @param objIndexer the indexer of context-sensitive objects, which is
+     *                   used by bit-set-based points-to sets
+     * @throws ConfigException if the given representation is unknown
+     */
+    public PointsToSetFactory(AnalysisOptions options, Indexer<CSObj> objIndexer) {
+        String pts = options.getString("pts");
+        if (pts == null || pts.equals("hybrid")) {
+            factory = () -> new DelegatePointsToSet(Sets.newHybridSet());
+        } else if (pts.equals("bit")) {
+            factory = () -> new BitSetPointsToSet(objIndexer);
+        } else {
+            throw new ConfigException("Unknown points-to set representation: " + pts);
+        }
+    }
+
+    public PointsToSet make() {
+        return factory.get();
     }
 
     /**
      * Convenient method for making one-element points-to set.
      */
-    public static PointsToSet make(CSObj obj) {
+    public PointsToSet make(CSObj obj) {
         PointsToSet set = make();
         set.addObject(obj);
         return set;
@@ -0,0 +1,123 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.toolkit.zipper;
+
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.StoreArray;
+import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Object flow graph built from the result of a (context-insensitive)
+ * pointer analysis. The nodes are variables, instance fields and array
+ * indexes, and each edge represents a flow of objects between two nodes.
+ */
+class ObjectFlowGraph {
+
+    /**
+     * Node for instance field base.field.
+     */
+    record InstanceFieldNode(Obj base, JField field) {
+    }
+
+    /**
+     * Node for the elements of array object.
+     */
+    record ArrayIndexNode(Obj array) {
+    }
+
+    private final MultiMap<Object, Object> succs = Maps.newMultiMap();
+
+    private final MultiMap<Object, Object> preds = Maps.newMultiMap();
+
+    ObjectFlowGraph(PointerAnalysisResult pta) {
+        CallGraph<Invoke, JMethod> callGraph = pta.getCallGraph();
+        callGraph.reachableMethods().forEach(method -> {
+            for (Stmt stmt : method.getIR().getStmts()) {
+                if (stmt instanceof Copy copy) {
+                    addEdge(copy.getRValue(), copy.getLValue());
+                }
+            }
+        });
+        for (Var var : pta.getVars()) {
+            Set<Obj> pts = pta.getPointsToSet(var);
+            for (StoreField store : var.getStoreFields()) {
+                JField field = store.getFieldRef().resolve();
+                pts.forEach(o -> addEdge(store.getRValue(),
+                        new InstanceFieldNode(o, field)));
+            }
+            for (LoadField load : var.getLoadFields()) {
+                JField field = load.getFieldRef().resolve();
+                pts.forEach(o -> addEdge(new InstanceFieldNode(o, field),
+                        load.getLValue()));
+            }
+            for (StoreArray store : var.getStoreArrays()) {
+                pts.forEach(o -> addEdge(store.getRValue(), new ArrayIndexNode(o)));
+            }
+            for (LoadArray load : var.getLoadArrays()) {
+                pts.forEach(o -> addEdge(new ArrayIndexNode(o), load.getLValue()));
+            }
+        }
+        callGraph.edges().forEach(edge -> {
+            Invoke invoke = edge.getCallSite();
+            JMethod callee = edge.getCallee();
+            List<Var> args = invoke.getInvokeExp().getArgs();
+            List<Var> params = callee.getIR().getParams();
+            for (int i = 0; i < params.size(); ++i) {
+                addEdge(args.get(i), params.get(i));
+            }
+            Var result = invoke.getResult();
+            if (result != null) {
+                callee.getIR().getReturnVars().forEach(ret -> addEdge(ret, result));
+            }
+        });
+    }
+
+    private void addEdge(Object source, Object target) {
+        if (succs.put(source, target)) {
+            preds.put(target, source);
+        }
+    }
+
+    Set<Object> getSuccsOf(Object node) {
+        return succs.get(node);
+    }
+
+    Set<Object> getPredsOf(Object node) {
+        return preds.get(node);
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.toolkit.zipper;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.toolkit.PointerAnalysisResultEx;
+import pascal.taie.analysis.pta.toolkit.PointerAnalysisResultExImpl;
+import pascal.taie.ir.exp.InvokeInstanceExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Selects precision-critical methods in the way of Zipper, i.e., the
+ * methods through which objects flow in and then out of the objects of
+ * the same type. Analyzing such methods context-insensitively merges the
+ * flows of different objects of the type, and thus loses precision.
+ * <p>
+ * For each type T, let methods(T) be the methods invoked on the objects
+ * of T. The objects passed to the parameters of methods(T) (IN flows)
+ * and returned by methods(T) (OUT flows) are traced on the object flow
+ * graph, restricted to the variables in methods(T), and the methods which
+ * contain the variables on some flow from IN to OUT are precision-critical.
+ * Calls from methods(T) to other methods are summarized by the flows
+ * from their arguments and receivers to their results.
+ */
+public class Zipper {
+
+    private static final Logger logger = LogManager.getLogger(Zipper.class);
+
+    private final PointerAnalysisResult pta;
+
+    private final PointerAnalysisResultEx ptaEx;
+
+    private final ObjectFlowGraph ofg;
+
+    /**
+     * @param pta result of a context-insensitive pointer analysis.
+     */
+    public Zipper(PointerAnalysisResult pta) {
+        this.pta = pta;
+        this.ptaEx = new PointerAnalysisResultExImpl(pta);
+        this.ofg = new ObjectFlowGraph(pta);
+    }
+
+    /**
+     * @return the precision-critical methods.
+     */
+    public Set<JMethod> selectPrecisionCriticalMethods() {
+        MultiMap<Type, JMethod> typeMethods = Maps.newMultiMap();
+        for (Obj obj : pta.getObjects()) {
+            typeMethods.putAll(obj.getType(), ptaEx.getMethodsInvokedOn(obj));
+        }
+        Set<JMethod> pcms = Sets.newSet();
+        typeMethods.forEachSet((type, methods) -> {
+            Set<JMethod> result = selectPrecisionCriticalMethods(methods);
+            logger.debug("{}: {} precision-critical methods", type, result.size());
+            pcms.addAll(result);
+        });
+        logger.info("#precision-critical methods: {}", pcms.size());
+        return pcms;
+    }
+
+    private Set<JMethod> selectPrecisionCriticalMethods(Set<JMethod> methods) {
+        Set<Var> ins = Sets.newSet();
+        Set<Var> outs = Sets.newSet();
+        for (JMethod method : methods) {
+            ins.addAll(method.getIR().getParams());
+            outs.addAll(method.getIR().getReturnVars());
+        }
+        if (ins.isEmpty() || outs.isEmpty()) {
+            return Set.of();
+        }
+        MultiMap<Var, Var> summarySuccs = Maps.newMultiMap();
+        MultiMap<Var, Var> summaryPreds = Maps.newMultiMap();
+        addSummaryEdges(methods, summarySuccs, summaryPreds);
+        Set<Object> forward = traverse(ins, methods,
+                ofg::getSuccsOf, summarySuccs);
+        Set<Object> backward = traverse(outs, methods,
+                ofg::getPredsOf, summaryPreds);
+        Set<JMethod> result = Sets.newSet();
+        for (Object node : forward) {
+            if (node instanceof Var var && backward.contains(var)) {
+                result.add(var.getMethod());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds the flows from arguments and receivers to the results of
+     * the calls in given methods to the callees outside given methods.
+     */
+    private void addSummaryEdges(Set<JMethod> methods,
+                                 MultiMap<Var, Var> summarySuccs,
+                                 MultiMap<Var, Var> summaryPreds) {
+        CallGraph<Invoke, JMethod> callGraph = pta.getCallGraph();
+        for (JMethod method : methods) {
+            for (Stmt stmt : method.getIR().getStmts()) {
+                if (stmt instanceof Invoke invoke && invoke.getResult() != null &&
+                        !methods.containsAll(callGraph.getCalleesOf(invoke))) {
+                    Var result = invoke.getResult();
+                    for (Var arg : invoke.getInvokeExp().getArgs()) {
+                        summarySuccs.put(arg, result);
+                        summaryPreds.put(result, arg);
+                    }
+                    if (invoke.getInvokeExp() instanceof InvokeInstanceExp ie) {
+                        summarySuccs.put(ie.getBase(), result);
+                        summaryPreds.put(result, ie.getBase());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the nodes reachable from given variables, where the
+     * variables outside given methods are not traversed.
+     */
+    private Set<Object> traverse(Collection<Var> roots, Set<JMethod> methods,
+                                 Function<Object, Set<Object>> next,
+                                 MultiMap<Var, Var> summaries) {
+        Set<Object> visited = Sets.newSet();
+        Deque<Object> workList = new ArrayDeque<>(roots);
+        visited.addAll(roots);
+        while (!workList.isEmpty()) {
+            Object node = workList.poll();
+            for (Object n : next.apply(node)) {
+                if ((!(n instanceof Var v) || methods.contains(v.getMethod()))
+                        && visited.add(n)) {
+                    workList.add(n);
+                }
+            }
+            if (node instanceof Var var) {
+                for (Var n : summaries.get(var)) {
+                    if (visited.add(n)) {
+                        workList.add(n);
+                    }
+                }
+            }
+        }
+        return visited;
+    }
+}
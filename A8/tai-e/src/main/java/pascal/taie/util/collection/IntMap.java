@@ -0,0 +1,215 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util.collection;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntFunction;
+
+/**
+ * Map from non-negative int keys to non-null values, implemented by
+ * an open-addressing hash table with linear probing. Compared to
+ * {@link java.util.HashMap}, it neither boxes the keys nor allocates
+ * an entry object for each mapping.
+ *
+ * @param <V> type of values
+ */
+public class IntMap<V> {
+
+    private static final int DEFAULT_CAPACITY = 4;
+
+    private int[] keys;
+
+    /**
+     * values[i] == null means that slot i is empty.
+     */
+    private Object[] values;
+
+    private int size;
+
+    public IntMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntMap(int expectedSize) {
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity * 3 < expectedSize * 4) {
+            capacity <<= 1;
+        }
+        keys = new int[capacity];
+        values = new Object[capacity];
+    }
+
+    /**
+     * @return the value to which given key is mapped,
+     * or null if this map contains no mapping for the key.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int mask = keys.length - 1;
+        for (int i = hash(key) & mask; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return (V) values[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Associates given value with given key.
+     *
+     * @return the previous value associated with the key,
+     * or null if there was no mapping for the key.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Negative key: " + key);
+        }
+        if (value == null) {
+            throw new NullPointerException("IntMap does not permit null values");
+        }
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        for (; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                V old = (V) values[i];
+                values[i] = value;
+                return old;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 4 > keys.length * 3) {
+            resize();
+        }
+        return null;
+    }
+
+    /**
+     * If given key is not associated with a value, computes the value
+     * by given function and puts it into this map.
+     *
+     * @return the value associated with the key.
+     */
+    public V computeIfAbsent(int key, IntFunction<? extends V> mappingFunction) {
+        V value = get(key);
+        if (value == null) {
+            value = mappingFunction.apply(key);
+            put(key, value);
+        }
+        return value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return an unmodifiable view of the values in this map.
+     */
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+
+            @Override
+            public Iterator<V> iterator() {
+                return new Iterator<>() {
+
+                    private int next = advance(0);
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < values.length;
+                    }
+
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public V next() {
+                        if (next >= values.length) {
+                            throw new NoSuchElementException();
+                        }
+                        V value = (V) values[next];
+                        next = advance(next + 1);
+                        return value;
+                    }
+
+                    private int advance(int i) {
+                        while (i < values.length && values[i] == null) {
+                            ++i;
+                        }
+                        return i;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private void resize() {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        int capacity = oldKeys.length << 1;
+        int mask = capacity - 1;
+        keys = new int[capacity];
+        values = new Object[capacity];
+        for (int j = 0; j < oldKeys.length; ++j) {
+            if (oldValues[j] != null) {
+                int i = hash(oldKeys[j]) & mask;
+                while (values[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < keys.length; ++i) {
+            if (values[i] != null) {
+                if (sb.length() > 1) {
+                    sb.append(", ");
+                }
+                sb.append(keys[i]).append('=').append(values[i]);
+            }
+        }
+        return sb.append('}').toString();
+    }
+}
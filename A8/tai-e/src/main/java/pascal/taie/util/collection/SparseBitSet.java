@@ -0,0 +1,375 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util.collection;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Compressed bit set for non-negative integers.
+ * <p>
+ * Only the non-zero 64-bit words are stored, together with their
+ * word offsets (sorted in ascending order), so that sets of large but
+ * scattered indexes stay small. Union, difference and containment are
+ * performed word by word by merging the two sorted word lists.
+ */
+public class SparseBitSet {
+
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+
+    private static final int DEFAULT_CAPACITY = 2;
+
+    /**
+     * Offsets (i.e., bit index >>> 6) of the stored words, in ascending order.
+     */
+    private int[] offsets;
+
+    /**
+     * Stored words, words[i] holds the bits of word at offsets[i].
+     */
+    private long[] words;
+
+    /**
+     * Number of stored words.
+     */
+    private int wordsInUse;
+
+    /**
+     * Number of set bits, maintained incrementally.
+     */
+    private int cardinality;
+
+    public SparseBitSet() {
+        offsets = new int[DEFAULT_CAPACITY];
+        words = new long[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * Creates a copy of given bit set.
+     */
+    public SparseBitSet(SparseBitSet other) {
+        offsets = Arrays.copyOf(other.offsets, Math.max(other.wordsInUse, 1));
+        words = Arrays.copyOf(other.words, Math.max(other.wordsInUse, 1));
+        wordsInUse = other.wordsInUse;
+        cardinality = other.cardinality;
+    }
+
+    /**
+     * Sets the bit at given index.
+     *
+     * @return true if this set changed as a result of the call,
+     * otherwise false.
+     */
+    public boolean set(int bitIndex) {
+        checkIndex(bitIndex);
+        int offset = bitIndex >>> ADDRESS_BITS_PER_WORD;
+        long mask = 1L << bitIndex;
+        int pos = findWord(offset);
+        if (pos >= 0) {
+            if ((words[pos] & mask) != 0) {
+                return false;
+            }
+            words[pos] |= mask;
+        } else {
+            insertWord(-(pos + 1), offset, mask);
+        }
+        ++cardinality;
+        return true;
+    }
+
+    /**
+     * @return true if the bit at given index is set, otherwise false.
+     */
+    public boolean get(int bitIndex) {
+        checkIndex(bitIndex);
+        int pos = findWord(bitIndex >>> ADDRESS_BITS_PER_WORD);
+        return pos >= 0 && (words[pos] & (1L << bitIndex)) != 0;
+    }
+
+    /**
+     * Performs union of this set and given set, i.e., this = this | other.
+     *
+     * @return true if this set changed as a result of the call,
+     * otherwise false.
+     */
+    public boolean or(SparseBitSet other) {
+        if (other.wordsInUse == 0) {
+            return false;
+        }
+        int unionWords = countUnionWords(other);
+        if (unionWords == wordsInUse) {
+            // all words of other are present in this set, update in place
+            boolean changed = false;
+            for (int i = 0, j = 0; j < other.wordsInUse; ++i) {
+                if (offsets[i] == other.offsets[j]) {
+                    long old = words[i];
+                    long merged = old | other.words[j];
+                    if (merged != old) {
+                        words[i] = merged;
+                        cardinality += Long.bitCount(merged) - Long.bitCount(old);
+                        changed = true;
+                    }
+                    ++j;
+                }
+            }
+            return changed;
+        }
+        int[] newOffsets = new int[unionWords];
+        long[] newWords = new long[unionWords];
+        int i = 0, j = 0, k = 0, newCardinality = 0;
+        while (i < wordsInUse || j < other.wordsInUse) {
+            long word;
+            if (j >= other.wordsInUse ||
+                    (i < wordsInUse && offsets[i] < other.offsets[j])) {
+                newOffsets[k] = offsets[i];
+                word = words[i++];
+            } else if (i >= wordsInUse || other.offsets[j] < offsets[i]) {
+                newOffsets[k] = other.offsets[j];
+                word = other.words[j++];
+            } else {
+                newOffsets[k] = offsets[i];
+                word = words[i++] | other.words[j++];
+            }
+            newWords[k++] = word;
+            newCardinality += Long.bitCount(word);
+        }
+        offsets = newOffsets;
+        words = newWords;
+        wordsInUse = k;
+        cardinality = newCardinality;
+        return true;
+    }
+
+    /**
+     * Performs union of this set and given set, and returns the bits
+     * that are newly added to this set, i.e., other & ~this.
+     *
+     * @return a new set which consists of the bits that are set in given
+     * set but were not set in this set before the call.
+     */
+    public SparseBitSet orDiff(SparseBitSet other) {
+        SparseBitSet diff = new SparseBitSet(other);
+        diff.andNot(this);
+        or(diff);
+        return diff;
+    }
+
+    /**
+     * Removes all bits of given set from this set, i.e., this = this & ~other.
+     *
+     * @return true if this set changed as a result of the call,
+     * otherwise false.
+     */
+    public boolean andNot(SparseBitSet other) {
+        boolean changed = false;
+        int k = 0;
+        for (int i = 0, j = 0; i < wordsInUse; ++i) {
+            long word = words[i];
+            while (j < other.wordsInUse && other.offsets[j] < offsets[i]) {
+                ++j;
+            }
+            if (j < other.wordsInUse && other.offsets[j] == offsets[i]) {
+                long diff = word & ~other.words[j];
+                if (diff != word) {
+                    cardinality -= Long.bitCount(word) - Long.bitCount(diff);
+                    word = diff;
+                    changed = true;
+                }
+            }
+            if (word != 0) {
+                offsets[k] = offsets[i];
+                words[k++] = word;
+            }
+        }
+        wordsInUse = k;
+        return changed;
+    }
+
+    /**
+     * @return true if this set contains all bits of given set,
+     * otherwise false.
+     */
+    public boolean containsAll(SparseBitSet other) {
+        if (other.cardinality > cardinality) {
+            return false;
+        }
+        for (int i = 0, j = 0; j < other.wordsInUse; ++j) {
+            while (i < wordsInUse && offsets[i] < other.offsets[j]) {
+                ++i;
+            }
+            if (i == wordsInUse || offsets[i] != other.offsets[j] ||
+                    (other.words[j] & ~words[i]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return index of the first set bit that occurs on or after
+     * given index, or -1 if there is no such bit.
+     */
+    public int nextSetBit(int fromIndex) {
+        checkIndex(fromIndex);
+        int offset = fromIndex >>> ADDRESS_BITS_PER_WORD;
+        int pos = findWord(offset);
+        long word;
+        if (pos >= 0) {
+            word = words[pos] & (-1L << fromIndex);
+        } else {
+            pos = -(pos + 1);
+            word = pos < wordsInUse ? words[pos] : 0;
+        }
+        while (word == 0) {
+            if (++pos >= wordsInUse) {
+                return -1;
+            }
+            word = words[pos];
+        }
+        return (offsets[pos] << ADDRESS_BITS_PER_WORD) +
+                Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * Performs given action for each set bit in ascending order.
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < wordsInUse; ++i) {
+            long word = words[i];
+            int base = offsets[i] << ADDRESS_BITS_PER_WORD;
+            while (word != 0) {
+                action.accept(base + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+    }
+
+    /**
+     * @return a stream of the indexes of set bits in ascending order.
+     */
+    public IntStream stream() {
+        return IntStream.iterate(isEmpty() ? -1 : nextSetBit(0),
+                i -> i >= 0, i -> nextSetBit(i + 1));
+    }
+
+    /**
+     * @return the number of set bits.
+     */
+    public int cardinality() {
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    public void clear() {
+        wordsInUse = 0;
+        cardinality = 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SparseBitSet other)) {
+            return false;
+        }
+        return cardinality == other.cardinality &&
+                Arrays.equals(offsets, 0, wordsInUse,
+                        other.offsets, 0, other.wordsInUse) &&
+                Arrays.equals(words, 0, wordsInUse,
+                        other.words, 0, other.wordsInUse);
+    }
+
+    @Override
+    public int hashCode() {
+        long h = 1234;
+        for (int i = 0; i < wordsInUse; ++i) {
+            h ^= words[i] * (offsets[i] + 1);
+        }
+        return (int) ((h >> 32) ^ h);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach(i -> {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(i);
+        });
+        return sb.append('}').toString();
+    }
+
+    private static void checkIndex(int bitIndex) {
+        if (bitIndex < 0) {
+            throw new IndexOutOfBoundsException("bitIndex < 0: " + bitIndex);
+        }
+    }
+
+    /**
+     * Binary-searches the word at given offset.
+     *
+     * @return position of the word if it is stored, otherwise
+     * (-(insertion point) - 1).
+     */
+    private int findWord(int offset) {
+        return Arrays.binarySearch(offsets, 0, wordsInUse, offset);
+    }
+
+    private void insertWord(int pos, int offset, long word) {
+        if (wordsInUse == offsets.length) {
+            int newCapacity = offsets.length + (offsets.length >> 1) + 1;
+            offsets = Arrays.copyOf(offsets, newCapacity);
+            words = Arrays.copyOf(words, newCapacity);
+        }
+        System.arraycopy(offsets, pos, offsets, pos + 1, wordsInUse - pos);
+        System.arraycopy(words, pos, words, pos + 1, wordsInUse - pos);
+        offsets[pos] = offset;
+        words[pos] = word;
+        ++wordsInUse;
+    }
+
+    /**
+     * @return the number of distinct word offsets in this set and given set.
+     */
+    private int countUnionWords(SparseBitSet other) {
+        int i = 0, j = 0, n = 0;
+        while (i < wordsInUse && j < other.wordsInUse) {
+            if (offsets[i] < other.offsets[j]) {
+                ++i;
+            } else if (offsets[i] > other.offsets[j]) {
+                ++j;
+            } else {
+                ++i;
+                ++j;
+            }
+            ++n;
+        }
+        return n + (wordsInUse - i) + (other.wordsInUse - j);
+    }
+}
@@ -22,8 +22,31 @@
 
 package pascal.taie.analysis.pta;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
 import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.cs.CSPTA;
+import pascal.taie.analysis.pta.plugin.taint.TaintAnalysiss;
+import pascal.taie.analysis.pta.plugin.taint.TaintFlow;
+import pascal.taie.analysis.pta.plugin.taint.TaintWitnesses;
+import pascal.taie.config.AnalysisConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class TaintTest {
 
@@ -70,4 +93,263 @@ public class TaintTest {
         Tests.testCSPTA(DIR, "TaintInList",
                 "cs:2-obj;taint-config:src/test/resources/pta/taint/taint-config.yml");
     }
+
+    @Test
+    public void testTaintInListBitSet() {
+        Tests.testCSPTA(DIR, "TaintInList",
+                "cs:2-obj;pts:bit;taint-config:src/test/resources/pta/taint/taint-config.yml");
+    }
+
+    @Test
+    public void testInterTaintTransferTopoWorkList() {
+        Tests.testCSPTA(DIR, "InterTaintTransfer",
+                "cs:2-call;worklist:topo;taint-config:src/test/resources/pta/taint/taint-config.yml");
+    }
+
+    @Test
+    public void testTaintInListCollapseCycles() {
+        Tests.testCSPTA(DIR, "TaintInList",
+                "cs:2-obj;collapse-cycles:true;taint-config:src/test/resources/pta/taint/taint-config.yml");
+    }
+
+    @Test
+    public void testSimpleTaintSparse() {
+        Tests.testCSPTA(DIR, "SimpleTaint",
+                "taint-mode:sparse;taint-config:src/test/resources/pta/taint/taint-config.yml");
+    }
+
+    @Test
+    public void testArgToResultSparse() {
+        Tests.testCSPTA(DIR, "ArgToResult",
+                "taint-mode:sparse;taint-config:src/test/resources/pta/taint/taint-config.yml");
+    }
+
+    @Test
+    public void testBaseToResultSparse() {
+        Tests.testCSPTA(DIR, "BaseToResult",
+                "taint-mode:sparse;taint-config:src/test/resources/pta/taint/taint-config.yml");
+    }
+
+    @Test
+    public void testStringAppendSparse() {
+        Tests.testCSPTA(DIR, "StringAppend",
+                "taint-mode:sparse;taint-config:src/test/resources/pta/taint/taint-config.yml");
+    }
+
+    @Test
+    public void testOneCallTaintSparse() {
+        Tests.testCSPTA(DIR, "OneCallTaint",
+                "cs:1-call;taint-mode:sparse;taint-config:src/test/resources/pta/taint/taint-config.yml");
+    }
+
+    @Test
+    public void testInterTaintTransferSparse() {
+        Tests.testCSPTA(DIR, "InterTaintTransfer",
+                "cs:2-call;taint-mode:sparse;taint-config:src/test/resources/pta/taint/taint-config.yml");
+    }
+
+    @Test
+    public void testTaintInListSparse() {
+        Tests.testCSPTA(DIR, "TaintInList",
+                "cs:2-obj;taint-mode:sparse;taint-config:src/test/resources/pta/taint/taint-config.yml");
+    }
+
+    @Test
+    public void testTaintInListSparseCollapseCycles() {
+        Tests.testCSPTA(DIR, "TaintInList",
+                "cs:2-obj;collapse-cycles:true;taint-mode:sparse;taint-config:src/test/resources/pta/taint/taint-config.yml");
+    }
+
+    @Test
+    public void testInterTaintTransferSparseCollapseCycles() {
+        Tests.testCSPTA(DIR, "InterTaintTransfer",
+                "cs:2-call;collapse-cycles:true;taint-mode:sparse;taint-config:src/test/resources/pta/taint/taint-config.yml");
+    }
+
+    @Test
+    public void testSanitizer() {
+        Tests.testCSPTA(DIR, "Sanitizer",
+                "taint-config:src/test/resources/pta/taint/taint-config-sanitizer.yml");
+    }
+
+    @Test
+    public void testSanitizerSparse() {
+        Tests.testCSPTA(DIR, "Sanitizer",
+                "taint-mode:sparse;taint-config:src/test/resources/pta/taint/taint-config-sanitizer.yml");
+    }
+
+    @Test
+    public void testTaintInListArrayCSManager() {
+        Tests.testCSPTA(DIR, "TaintInList",
+                "cs:2-obj;cs-manager:array;taint-config:src/test/resources/pta/taint/taint-config.yml");
+    }
+
+    @Test
+    public void testTaintInListScaler() {
+        Tests.testCSPTA(DIR, "TaintInList",
+                "cs:scaler;taint-config:src/test/resources/pta/taint/taint-config.yml");
+    }
+
+    @Test
+    public void testTaintInListZipper() {
+        Tests.testCSPTA(DIR, "TaintInList",
+                "cs:2-obj;zipper:true;taint-config:src/test/resources/pta/taint/taint-config.yml");
+    }
+
+    @Test
+    public void testContainerTaintSummary() {
+        // the taint flows through JDK containers are checked by the lines
+        // of the sink calls, so no expected file is needed
+        Main.main(new String[]{
+                "-pp", "-cp", "src/test/resources/pta/taint", "-m", "ContainerTaint",
+                "-a", "cspta=implicit-entries:false;only-app:true;container-summary:true;" +
+                "taint-config:src/test/resources/pta/taint/taint-config.yml"});
+        assertEquals(List.of(14, 17, 20, 23, 28), getTaintFlows().stream()
+                .map(taintFlow -> taintFlow.sinkCall().getLineNumber())
+                .sorted()
+                .toList());
+    }
+
+    @Test
+    public void testContainerMethodTaint() {
+        testContainerMethodTaint("on-the-fly");
+    }
+
+    @Test
+    public void testContainerMethodTaintSparse() {
+        testContainerMethodTaint("sparse");
+    }
+
+    /**
+     * Checks the taint rules on the container methods summarized by
+     * container-summary, and the taints through the summarized views.
+     */
+    private static void testContainerMethodTaint(String taintMode) {
+        Main.main(new String[]{
+                "-pp", "-cp", "src/test/resources/pta/taint", "-m", "ContainerMethodTaint",
+                "-a", "cspta=implicit-entries:false;only-app:true;container-summary:true;" +
+                "taint-mode:" + taintMode + ";" +
+                "taint-config:src/test/resources/pta/taint/taint-config-container.yml"});
+        assertEquals(List.of(11, 15, 20, 25, 28, 31, 34), getTaintFlows().stream()
+                .map(taintFlow -> taintFlow.sinkCall().getLineNumber())
+                .sorted()
+                .toList());
+    }
+
+    @Test
+    public void testArgToResultConfigCache() {
+        File cacheDir = new File("output/taint-config-cache-test");
+        File[] oldFiles = cacheDir.listFiles();
+        if (oldFiles != null) {
+            Arrays.stream(oldFiles).forEach(File::delete);
+        }
+        String opts = "taint-config-cache:" + cacheDir +
+                ";taint-config:src/test/resources/pta/taint/taint-config.yml";
+        // the first run compiles the config
+        Tests.testCSPTA(DIR, "ArgToResult", opts);
+        Set<TaintFlow> taintFlows = getTaintFlows();
+        File[] compiled = cacheDir.listFiles();
+        assertEquals(1, compiled.length);
+        assertTrue(compiled[0].setLastModified(0));
+        // the second run reads the compiled config without rewriting it
+        Tests.testCSPTA(DIR, "ArgToResult", opts);
+        assertEquals(0, compiled[0].lastModified());
+        assertEquals(1, cacheDir.listFiles().length);
+        assertEquals(toStrings(taintFlows), toStrings(getTaintFlows()));
+    }
+
+    private static Set<TaintFlow> getTaintFlows() {
+        PointerAnalysisResult result = World.get().getResult(CSPTA.ID);
+        return result.getResult(TaintAnalysiss.class.getName());
+    }
+
+    private static List<String> toStrings(Set<TaintFlow> taintFlows) {
+        return taintFlows.stream().map(TaintFlow::toString).toList();
+    }
+
+    @Test
+    public void testSimpleTaintExportSarif() throws IOException {
+        Tests.testCSPTA(DIR, "SimpleTaint",
+                "taint-export:output/SimpleTaint.sarif;taint-config:src/test/resources/pta/taint/taint-config.yml");
+        JsonNode results = new ObjectMapper()
+                .readTree(new File("output/SimpleTaint.sarif"))
+                .get("runs").get(0).get("results");
+        assertEquals(getTaintFlows().size(), results.size());
+        // each result is located at the sink call and related to the source call
+        List<String> flows = new ArrayList<>();
+        for (JsonNode r : results) {
+            JsonNode sink = r.get("locations").get(0).get("physicalLocation");
+            JsonNode source = r.get("relatedLocations").get(0).get("physicalLocation");
+            assertEquals("SimpleTaint.java", sink.get("artifactLocation").get("uri").asText());
+            assertEquals("SimpleTaint.java", source.get("artifactLocation").get("uri").asText());
+            flows.add(source.get("region").get("startLine").asInt() + "->" +
+                    sink.get("region").get("startLine").asInt());
+        }
+        flows.sort(null);
+        assertEquals(List.of("4->11", "4->5", "7->11", "7->8"), flows);
+    }
+
+    @Test
+    public void testSimpleTaintWitnesses() {
+        Tests.testCSPTA(DIR, "SimpleTaint",
+                "taint-mode:sparse;taint-provenance:true;taint-max-paths:2;taint-export:output/SimpleTaint-witnesses.jsonl;taint-config:src/test/resources/pta/taint/taint-config.yml");
+        PointerAnalysisResult result = World.get().getResult(CSPTA.ID);
+        Set<TaintFlow> taintFlows = result.getResult(TaintAnalysiss.class.getName());
+        TaintWitnesses witnesses = result.getResult(TaintWitnesses.class.getName());
+        for (TaintFlow taintFlow : taintFlows) {
+            List<List<Pointer>> paths = witnesses.getPaths(taintFlow);
+            assertFalse(paths.isEmpty());
+            assertTrue(paths.size() <= 2);
+            for (List<Pointer> path : paths) {
+                // each path goes from the source result to the sink argument
+                assertEquals(taintFlow.sourceCall().getResult(),
+                        ((CSVar) path.get(0)).getVar());
+                assertEquals(taintFlow.sinkCall().getInvokeExp()
+                                .getArg(taintFlow.index()),
+                        ((CSVar) path.get(path.size() - 1)).getVar());
+            }
+        }
+        // s1 = source(); sink(s1);
+        TaintFlow first = taintFlows.iterator().next();
+        assertEquals(List.of(List.of("temp$0", "s1")),
+                witnesses.getPaths(first).stream()
+                        .map(path -> path.stream()
+                                .map(p -> ((CSVar) p).getVar().getName())
+                                .toList())
+                        .toList());
+    }
+
+    @Test
+    public void testSimpleTaintIncremental() {
+        // builds the world of SimpleTaint
+        Tests.testCSPTA(DIR, "SimpleTaint",
+                "taint-config:src/test/resources/pta/taint/taint-config.yml");
+        PointerAnalysisResult result = analyzeIncrementally(
+                "src/test/resources/pta/taint/taint-config.yml");
+        Set<TaintFlow> taintFlows = result.getResult(TaintAnalysiss.class.getName());
+        // only the taint configuration changes, so the solved pointer
+        // analysis, and thus its result, is reused
+        PointerAnalysisResult reanalyzed = analyzeIncrementally(
+                "src/test/resources/pta/taint/taint-config-single-sink.yml");
+        assertSame(result, reanalyzed);
+        Set<TaintFlow> reducedFlows = reanalyzed.getResult(TaintAnalysiss.class.getName());
+        assertEquals(4, taintFlows.size());
+        assertEquals(2, reducedFlows.size());
+        assertTrue(taintFlows.containsAll(reducedFlows));
+        reducedFlows.forEach(flow -> assertEquals(
+                "<SourceSink: void sink(java.lang.String)>",
+                flow.sinkCall().getMethodRef().resolve().getSignature()));
+    }
+
+    private static PointerAnalysisResult analyzeIncrementally(String taintConfig) {
+        return new CSPTA(new AnalysisConfig(CSPTA.ID,
+                "cs", "ci",
+                "merge-string-constants", false,
+                "merge-string-objects", false,
+                "merge-string-builders", false,
+                "merge-exception-objects", true,
+                "taint-mode", "sparse",
+                "taint-incremental", true,
+                "taint-config", taintConfig)).analyze();
+    }
 }
@@ -0,0 +1,75 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import org.junit.Test;
+import pascal.taie.World;
+import pascal.taie.analysis.Tests;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TaintConfigCacheTest {
+
+    private static final String CONFIG = "src/test/resources/pta/taint/taint-config-absent.yml";
+
+    @Test
+    public void testCompiledConfigEqualsParsedConfig() throws IOException {
+        // builds the world against which the rules are resolved
+        Tests.testCSPTA("taint", "ArgToResult",
+                "taint-config:src/test/resources/pta/taint/taint-config.yml");
+        File cacheDir = new File("output/taint-config-cache-unit-test");
+        File[] oldFiles = cacheDir.listFiles();
+        if (oldFiles != null) {
+            Arrays.stream(oldFiles).forEach(File::delete);
+        }
+        TaintConfig expected = TaintConfig.readConfig(CONFIG,
+                World.get().getClassHierarchy(), World.get().getTypeSystem());
+        // the first read compiles the config, and the second one loads it
+        TaintConfig compiled = TaintConfigCache.readConfig(CONFIG, cacheDir.toString());
+        File[] files = cacheDir.listFiles();
+        assertEquals(1, files.length);
+        TaintConfig reloaded = TaintConfigCache.readConfig(CONFIG, cacheDir.toString());
+        assertEquals(1, cacheDir.listFiles().length);
+        for (TaintConfig config : new TaintConfig[]{compiled, reloaded}) {
+            assertFalse(config.getSources().isEmpty());
+            assertEquals(expected.getSources(), config.getSources());
+            assertEquals(expected.getSinks(), config.getSinks());
+            assertEquals(expected.getTransfers(), config.getTransfers());
+            assertEquals(expected.getSanitizers(), config.getSanitizers());
+        }
+        // the absent methods are recorded in the compiled file
+        String content = new String(Files.readAllBytes(files[0].toPath()),
+                StandardCharsets.UTF_8);
+        assertTrue(content.contains("<AbsentSource: java.lang.String source()>"));
+        assertTrue(content.contains("<SourceSink: void absentSink(java.lang.String)>"));
+        assertTrue(content.contains("<AbsentTransfer: java.lang.String transfer(java.lang.String)>"));
+    }
+}
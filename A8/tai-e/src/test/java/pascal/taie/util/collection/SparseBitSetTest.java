@@ -0,0 +1,237 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util.collection;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SparseBitSetTest {
+
+    private static SparseBitSet newSet(int... indexes) {
+        SparseBitSet set = new SparseBitSet();
+        for (int i : indexes) {
+            set.set(i);
+        }
+        return set;
+    }
+
+    private static List<Integer> toList(SparseBitSet set) {
+        return set.stream().boxed().toList();
+    }
+
+    @Test
+    public void testSetMergesBitsOfSameWord() {
+        SparseBitSet set = newSet(1000, 3, 1);
+        assertTrue(set.set(63));
+        assertFalse(set.set(3));
+        assertTrue(set.set(1001));
+        assertEquals(5, set.cardinality());
+        assertEquals(List.of(1, 3, 63, 1000, 1001), toList(set));
+        assertTrue(set.get(63));
+        assertFalse(set.get(64));
+        assertFalse(set.get(100_000));
+    }
+
+    @Test
+    public void testOrInPlace() {
+        // all words of other are present in set
+        SparseBitSet set = newSet(1, 64, 1000);
+        assertTrue(set.or(newSet(2, 65)));
+        assertEquals(List.of(1, 2, 64, 65, 1000), toList(set));
+        assertEquals(5, set.cardinality());
+        assertFalse(set.or(newSet(1, 65)));
+        assertFalse(set.or(new SparseBitSet()));
+        assertEquals(5, set.cardinality());
+    }
+
+    @Test
+    public void testOrMerge() {
+        // other has words which are absent in set
+        SparseBitSet set = newSet(1, 1000);
+        assertTrue(set.or(newSet(500, 1001, 2000)));
+        assertEquals(List.of(1, 500, 1000, 1001, 2000), toList(set));
+        assertEquals(5, set.cardinality());
+        SparseBitSet empty = new SparseBitSet();
+        assertTrue(empty.or(set));
+        assertEquals(set, empty);
+    }
+
+    @Test
+    public void testOrDiff() {
+        SparseBitSet set = newSet(1, 64);
+        SparseBitSet other = newSet(1, 2, 64, 65, 1000);
+        SparseBitSet diff = set.orDiff(other);
+        assertEquals(List.of(2, 65, 1000), toList(diff));
+        assertEquals(3, diff.cardinality());
+        assertEquals(5, set.cardinality());
+        assertEquals(other, set);
+        // other is not modified
+        assertEquals(5, other.cardinality());
+        diff = set.orDiff(other);
+        assertTrue(diff.isEmpty());
+        assertEquals(0, diff.cardinality());
+        assertEquals(5, set.cardinality());
+    }
+
+    @Test
+    public void testAndNotCompactsToEmpty() {
+        SparseBitSet set = newSet(1, 64, 1000);
+        assertTrue(set.andNot(newSet(1, 64, 1000, 2000)));
+        assertTrue(set.isEmpty());
+        assertEquals(0, set.cardinality());
+        assertEquals(-1, set.nextSetBit(0));
+        assertEquals(new SparseBitSet(), set);
+        assertEquals(new SparseBitSet().hashCode(), set.hashCode());
+        assertFalse(set.andNot(newSet(1)));
+        // the emptied set is still usable
+        assertTrue(set.set(64));
+        assertEquals(List.of(64), toList(set));
+    }
+
+    @Test
+    public void testAndNotRemovesEmptiedWords() {
+        SparseBitSet set = newSet(1, 64, 65, 1000);
+        assertTrue(set.andNot(newSet(64, 65)));
+        assertEquals(List.of(1, 1000), toList(set));
+        assertEquals(2, set.cardinality());
+        assertEquals(1000, set.nextSetBit(2));
+        assertFalse(set.andNot(newSet(2, 66, 2000)));
+    }
+
+    @Test
+    public void testContainsAll() {
+        SparseBitSet set = newSet(1, 2, 64, 1000);
+        assertTrue(set.containsAll(new SparseBitSet()));
+        assertTrue(set.containsAll(newSet(1, 1000)));
+        assertTrue(set.containsAll(set));
+        // absent word
+        assertFalse(set.containsAll(newSet(1, 500)));
+        // present word, absent bit
+        assertFalse(set.containsAll(newSet(1, 3)));
+        // beyond the last word
+        assertFalse(set.containsAll(newSet(2000)));
+        // larger set
+        assertFalse(set.containsAll(newSet(1, 2, 64, 1000, 1001)));
+        assertFalse(new SparseBitSet().containsAll(newSet(0)));
+    }
+
+    @Test
+    public void testNextSetBit() {
+        SparseBitSet set = newSet(3, 130, 5000);
+        assertEquals(3, set.nextSetBit(0));
+        assertEquals(3, set.nextSetBit(3));
+        // rest of a stored word is empty
+        assertEquals(130, set.nextSetBit(4));
+        // from a missing word
+        assertEquals(130, set.nextSetBit(64));
+        assertEquals(5000, set.nextSetBit(131));
+        assertEquals(5000, set.nextSetBit(1000));
+        assertEquals(-1, set.nextSetBit(5001));
+        assertEquals(-1, set.nextSetBit(100_000));
+        assertEquals(-1, new SparseBitSet().nextSetBit(0));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testNegativeIndex() {
+        newSet(1).nextSetBit(-1);
+    }
+
+    @Test
+    public void testEqualsAndHashCodeAfterRemovals() {
+        SparseBitSet set = newSet(1, 64, 1000, 2000);
+        set.andNot(newSet(64, 2000));
+        SparseBitSet expected = newSet(1, 1000);
+        assertEquals(expected, set);
+        assertEquals(set, expected);
+        assertEquals(expected.hashCode(), set.hashCode());
+        assertEquals("{1, 1000}", set.toString());
+        set.andNot(newSet(1000));
+        assertNotEquals(expected, set);
+        assertEquals(newSet(1), set);
+        assertEquals(newSet(1).hashCode(), set.hashCode());
+    }
+
+    @Test
+    public void testCopy() {
+        SparseBitSet set = newSet(1, 1000);
+        SparseBitSet copy = new SparseBitSet(set);
+        assertEquals(set, copy);
+        copy.set(2000);
+        copy.andNot(newSet(1));
+        assertEquals(List.of(1, 1000), toList(set));
+        assertEquals(List.of(1000, 2000), toList(copy));
+        SparseBitSet emptyCopy = new SparseBitSet(new SparseBitSet());
+        assertTrue(emptyCopy.set(70));
+        assertEquals(List.of(70), toList(emptyCopy));
+    }
+
+    @Test
+    public void testAgainstBitSet() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; ++round) {
+            BitSet expected1 = new BitSet(), expected2 = new BitSet();
+            SparseBitSet set1 = new SparseBitSet(), set2 = new SparseBitSet();
+            for (int i = random.nextInt(20); i > 0; --i) {
+                int index = random.nextInt(4096);
+                expected1.set(index);
+                set1.set(index);
+            }
+            for (int i = random.nextInt(20); i > 0; --i) {
+                int index = random.nextInt(4096);
+                expected2.set(index);
+                set2.set(index);
+            }
+            BitSet expectedDiff = (BitSet) expected2.clone();
+            expectedDiff.andNot(expected1);
+            BitSet expectedAnd = (BitSet) expected1.clone();
+            expectedAnd.and(expected2);
+            assertEquals(expectedAnd.equals(expected2), set1.containsAll(set2));
+            SparseBitSet union = new SparseBitSet(set1);
+            SparseBitSet diff = union.orDiff(set2);
+            assertEquals(expectedDiff.stream().boxed().toList(), toList(diff));
+            assertEquals(expectedDiff.cardinality(), diff.cardinality());
+            BitSet expectedUnion = (BitSet) expected1.clone();
+            expectedUnion.or(expected2);
+            assertEquals(expectedUnion.stream().boxed().toList(), toList(union));
+            assertEquals(expectedUnion.cardinality(), union.cardinality());
+            SparseBitSet or = new SparseBitSet(set1);
+            assertEquals(!expectedDiff.isEmpty(), or.or(set2));
+            assertEquals(union, or);
+            assertEquals(union.hashCode(), or.hashCode());
+            BitSet expectedRest = (BitSet) expected1.clone();
+            expectedRest.andNot(expected2);
+            SparseBitSet rest = new SparseBitSet(set1);
+            assertEquals(!expectedAnd.isEmpty(), rest.andNot(set2));
+            assertEquals(expectedRest.stream().boxed().toList(), toList(rest));
+            assertEquals(expectedRest.cardinality(), rest.cardinality());
+        }
+    }
+}
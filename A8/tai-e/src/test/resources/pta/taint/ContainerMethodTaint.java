@@ -0,0 +1,36 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class ContainerMethodTaint {
+
+    public static void main(String[] args) {
+        String taint = SourceSink.source();
+        List<String> list = new ArrayList<>();
+        list.add(taint); // taint, add() is a sink
+
+        Map<String, String> map = new HashMap<>();
+        map.put("key", new String());
+        SourceSink.sink(map.get("key")); // taint, get() is a source
+
+        Map<String, String> entries = new HashMap<>();
+        entries.put(taint, new String());
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            SourceSink.sink(entry.getKey()); // taint
+            SourceSink.sink(entry.getValue()); // no taint
+        }
+
+        Object[] array = list.toArray();
+        SourceSink.sink((String) array[0]); // taint
+
+        String[] strings = list.toArray(new String[0]);
+        SourceSink.sink(strings[0]); // taint
+
+        List<String> fallback = new ArrayList<>();
+        fallback.add(taint); // taint, add() is a sink
+        // listIterator(int) is not summarized, thus fallback
+        // falls back to the implementation of ArrayList
+        SourceSink.sink(fallback.listIterator(0).next()); // taint
+    }
+}
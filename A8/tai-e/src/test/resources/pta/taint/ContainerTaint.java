@@ -0,0 +1,34 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class ContainerTaint {
+
+    public static void main(String[] args) {
+        String taint = SourceSink.source();
+        List<String> list = new ArrayList<>();
+        list.add(taint);
+        SourceSink.sink(list.get(0)); // taint
+
+        List<String> copy = new ArrayList<>(list);
+        SourceSink.sink(copy.get(0)); // taint
+
+        List<String> asList = Arrays.asList(taint);
+        SourceSink.sink(asList.get(0)); // taint
+
+        List<String> unmodifiable = Collections.unmodifiableList(list);
+        SourceSink.sink(unmodifiable.get(0)); // taint
+
+        Map<String, String> map = new HashMap<>();
+        map.put("key", taint);
+        Map<String, String> mapCopy = new HashMap<>(map);
+        SourceSink.sink(mapCopy.get("key")); // taint
+
+        List<String> clean = new ArrayList<>();
+        clean.add(new String());
+        SourceSink.sink(new ArrayList<>(clean).get(0)); // no taint
+    }
+}
@@ -0,0 +1,33 @@
+class Sanitizer {
+
+    public static void main(String[] args) {
+        String taint = SourceSink.source();
+        String s1 = sanitize(taint);
+        SourceSink.sink(s1); // no taint
+
+        String s2 = escape(taint);
+        SourceSink.sink(s2); // no taint, the transfer of escape() is sanitized
+
+        String s3 = clean(taint);
+        SourceSink.sink(s3); // no taint
+
+        String s4 = identity(taint);
+        SourceSink.sink(s4); // taint
+    }
+
+    static String sanitize(String s) {
+        return s;
+    }
+
+    static String escape(String s) {
+        return new String();
+    }
+
+    static String clean(String s) {
+        return s;
+    }
+
+    static String identity(String s) {
+        return s;
+    }
+}